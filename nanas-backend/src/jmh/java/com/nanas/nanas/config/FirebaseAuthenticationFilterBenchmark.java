@@ -0,0 +1,189 @@
+package com.nanas.nanas.config;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.repository.UsuarioRepository;
+import com.nanas.nanas.service.AuthService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do filtro por requisição com token já em cache e com verificação
+ * completa pelo Admin SDK. Os tokens são assinados com a chave de teste
+ * (src/test/resources/firebase) e o certificado é servido por um
+ * HttpTransport local, como em AquecimentoChavesFirebaseTest.
+ * <p>
+ * No caso sem cache o filtro é criado com tamanho máximo 0 e os tokens se
+ * alternam entre {@link #TOKENS} assinaturas distintas, então toda chamada
+ * verifica a assinatura RSA.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirebaseAuthenticationFilterBenchmark {
+
+    private static final String PROJETO = "nanas-benchmark";
+    private static final String KID = "chave-teste";
+    private static final String UID = "usuario-benchmark";
+    private static final int TOKENS = 256;
+
+    private FirebaseApp app;
+    private FirebaseAuthenticationFilter filtroComCache;
+    private FirebaseAuthenticationFilter filtroSemCache;
+    private String[] tokens;
+    private int proximo;
+
+    @Setup
+    public void preparar() throws Exception {
+        FirebaseOptions options = FirebaseOptions.builder()
+                .setCredentials(GoogleCredentials.create(new AccessToken("benchmark", null)))
+                .setProjectId(PROJETO)
+                .setHttpTransport(new TransporteCertificados())
+                .build();
+        app = FirebaseApp.initializeApp(options, "benchmark-" + UUID.randomUUID());
+        FirebaseAuth firebaseAuth = FirebaseAuth.getInstance(app);
+
+        AuthService authService = new AuthService(repositorioComUsuario(), firebaseAuth, 10_000, 10);
+        filtroComCache = new FirebaseAuthenticationFilter(firebaseAuth, authService, new SimpleMeterRegistry(), 10_000);
+        filtroSemCache = new FirebaseAuthenticationFilter(firebaseAuth, authService, new SimpleMeterRegistry(), 0);
+
+        PrivateKey chave = chavePrivada();
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = tokenAssinado(chave, i);
+        }
+        // Certificados carregados antes da medição, como faz AquecimentoChavesFirebase
+        firebaseAuth.verifyIdToken(tokens[0]);
+    }
+
+    @TearDown
+    public void encerrar() {
+        app.delete();
+    }
+
+    @Benchmark
+    public int tokenEmCache() throws Exception {
+        return filtrar(filtroComCache, tokens[0]);
+    }
+
+    @Benchmark
+    public int tokenVerificado() throws Exception {
+        proximo = (proximo + 1) % TOKENS;
+        return filtrar(filtroSemCache, tokens[proximo]);
+    }
+
+    private static int filtrar(FirebaseAuthenticationFilter filtro, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filtro.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+
+    // Só findByFirebaseUid é usado pelo AuthService no caminho do filtro
+    private static UsuarioRepository repositorioComUsuario() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setFirebaseUid(UID);
+        return (UsuarioRepository) Proxy.newProxyInstance(UsuarioRepository.class.getClassLoader(),
+                new Class<?>[]{UsuarioRepository.class}, (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("findByFirebaseUid")) {
+                        return Optional.of(usuario);
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    // Tokens distintos pelo iat, todos do mesmo usuário e ainda válidos
+    private static String tokenAssinado(PrivateKey chave, int indice) throws Exception {
+        long agora = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        String cabecalho = "{\"alg\":\"RS256\",\"kid\":\"" + KID + "\",\"typ\":\"JWT\"}";
+        String claims = "{\"aud\":\"" + PROJETO + "\""
+                + ",\"iss\":\"https://securetoken.google.com/" + PROJETO + "\""
+                + ",\"sub\":\"" + UID + "\""
+                + ",\"auth_time\":" + (agora - 600)
+                + ",\"iat\":" + (agora - 60 - indice)
+                + ",\"exp\":" + (agora + 3600) + "}";
+        String conteudo = base64Url(cabecalho.getBytes(StandardCharsets.UTF_8)) + "."
+                + base64Url(claims.getBytes(StandardCharsets.UTF_8));
+
+        Signature assinatura = Signature.getInstance("SHA256withRSA");
+        assinatura.initSign(chave);
+        assinatura.update(conteudo.getBytes(StandardCharsets.US_ASCII));
+        return conteudo + "." + base64Url(assinatura.sign());
+    }
+
+    private static PrivateKey chavePrivada() throws Exception {
+        String pem = lerRecurso("/firebase/chave-teste.pem")
+                .replaceAll("-----[A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+    }
+
+    private static String lerRecurso(String caminho) throws IOException {
+        try (InputStream in = FirebaseAuthenticationFilterBenchmark.class.getResourceAsStream(caminho)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /** Serve {kid: certificado PEM} com validade de uma hora, como o endpoint do Google. */
+    private static final class TransporteCertificados extends MockHttpTransport {
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+            String certificado = lerRecurso("/firebase/certificado-teste.pem")
+                    .replace("\\", "\\\\").replace("\n", "\\n");
+            MockLowLevelHttpResponse resposta = new MockLowLevelHttpResponse()
+                    .setContentType("application/json; charset=UTF-8")
+                    .setContent("{\"" + KID + "\":\"" + certificado + "\"}")
+                    .addHeader("Cache-Control", "public, max-age=3600");
+            return new MockLowLevelHttpRequest(url).setResponse(resposta);
+        }
+    }
+}
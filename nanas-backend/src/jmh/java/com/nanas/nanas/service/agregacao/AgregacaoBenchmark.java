@@ -0,0 +1,85 @@
+package com.nanas.nanas.service.agregacao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Somas em centavos contra o caminho BigDecimal que elas substituíram: total
+ * de uma lista de valores e totais por categoria. Os valores têm duas casas,
+ * como os lidos de transacoes.valor; as somas são comparadas em
+ * SomaCentavosTest e SomasPorChaveTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgregacaoBenchmark {
+
+    @Param({"1000", "100000"})
+    private int quantidade;
+
+    @Param({"40"})
+    private int categorias;
+
+    private BigDecimal[] valores;
+    private long[] categoriaIds;
+
+    @Setup
+    public void gerarValores() {
+        Random aleatorio = new Random(42);
+        valores = new BigDecimal[quantidade];
+        categoriaIds = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            valores[i] = BigDecimal.valueOf(1 + aleatorio.nextInt(500_000), 2);
+            categoriaIds[i] = 1_000 + aleatorio.nextInt(categorias);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        return Arrays.stream(valores).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal totalCentavos() {
+        return Arrays.stream(valores).collect(SomaCentavos.somando());
+    }
+
+    @Benchmark
+    public void porCategoriaHashMap(Blackhole blackhole) {
+        Map<Long, BigDecimal> totais = new HashMap<>();
+        for (int i = 0; i < quantidade; i++) {
+            totais.merge(categoriaIds[i], valores[i], BigDecimal::add);
+        }
+        totais.forEach((categoriaId, total) -> blackhole.consume(total));
+    }
+
+    @Benchmark
+    public void porCategoriaCentavos(Blackhole blackhole) {
+        SomasPorChave totais = new SomasPorChave();
+        for (int i = 0; i < quantidade; i++) {
+            totais.adicionar(categoriaIds[i], valores[i]);
+        }
+        // A conversão para BigDecimal na borda do DTO entra na medição
+        totais.forEach((categoriaId, centavos) -> blackhole.consume(Centavos.paraBigDecimal(centavos)));
+    }
+}
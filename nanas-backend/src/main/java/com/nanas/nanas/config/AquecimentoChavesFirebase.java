@@ -0,0 +1,94 @@
+package com.nanas.nanas.config;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém carregadas as chaves que o Admin SDK usa em verifyIdToken.
+ * <p>
+ * O SDK busca os certificados do Google na primeira verificação e os renova
+ * quando faltam menos de 5 minutos para a validade do Cache-Control. Sem este
+ * componente as duas buscas acontecem na thread da requisição. Aqui um token
+ * de sondagem, com claims válidas e assinatura inválida, passa por
+ * verifyIdToken na inicialização e a cada firebase.chaves.verificacao-ms: a
+ * verificação percorre a busca das chaves do SDK e falha só na assinatura.
+ * Com intervalo menor que esses 5 minutos, a renovação ocorre nesta thread.
+ * Uma requisição só espera se chegar durante a busca, pois o SDK a faz sob lock.
+ */
+@Component
+public class AquecimentoChavesFirebase {
+
+    private static final Logger logger = LoggerFactory.getLogger(AquecimentoChavesFirebase.class);
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final FirebaseAuth firebaseAuth;
+    private final String projectId;
+
+    public AquecimentoChavesFirebase(FirebaseApp firebaseApp, FirebaseAuth firebaseAuth) {
+        String projectId = firebaseApp.getOptions().getProjectId();
+        if (projectId == null || projectId.isEmpty()) {
+            throw new IllegalStateException(
+                    "Project ID do Firebase não encontrado: configure firebase.project-id ou use uma conta de serviço");
+        }
+        this.firebaseAuth = firebaseAuth;
+        this.projectId = projectId;
+    }
+
+    @PostConstruct
+    void aquecer() {
+        if (atualizarChaves()) {
+            logger.info("Chaves de verificação do Firebase carregadas");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${firebase.chaves.verificacao-ms:60000}",
+               initialDelayString = "${firebase.chaves.verificacao-ms:60000}")
+    public void verificarChaves() {
+        atualizarChaves();
+    }
+
+    /**
+     * Faz o SDK carregar ou renovar as chaves, se preciso.
+     *
+     * @return false se a busca dos certificados falhou
+     */
+    public boolean atualizarChaves() {
+        try {
+            firebaseAuth.verifyIdToken(tokenDeSondagem());
+        } catch (FirebaseAuthException e) {
+            if (e.getAuthErrorCode() == AuthErrorCode.CERTIFICATE_FETCH_FAILED) {
+                logger.warn("Falha ao buscar as chaves de verificação do Firebase: {}", e.getMessage());
+                return false;
+            }
+            // Esperado: as chaves foram obtidas e a assinatura de sondagem não confere
+        }
+        return true;
+    }
+
+    private String tokenDeSondagem() {
+        long agora = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        String cabecalho = "{\"alg\":\"RS256\",\"kid\":\"sondagem\",\"typ\":\"JWT\"}";
+        String claims = "{\"aud\":\"" + projectId + "\""
+                + ",\"iss\":\"https://securetoken.google.com/" + projectId + "\""
+                + ",\"sub\":\"sondagem\""
+                + ",\"iat\":" + agora
+                + ",\"exp\":" + (agora + 3600) + "}";
+        return codificar(cabecalho) + "." + codificar(claims) + "." + BASE64_URL.encodeToString(new byte[32]);
+    }
+
+    private static String codificar(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,18 @@
+package com.nanas.nanas.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca serviços (ou métodos) de relatórios e análises. As conexões abertas
+ * durante a chamada saem do pool analítico, separado do pool das operações
+ * de escrita, ou da réplica quando a transação é readOnly.
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CargaAnalitica {
+}
@@ -0,0 +1,44 @@
+package com.nanas.nanas.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sinaliza ao RoteamentoDataSource que a chamada é analítica. A conexão só é
+ * escolhida no primeiro comando SQL da transação, e cada transação obtém a
+ * sua (spring.jpa.open-in-view=false). Roda por fora do interceptor de
+ * transação, para distinguir a transação do próprio serviço de uma já aberta
+ * por quem o chamou: nessa, a chamada segue na conexão existente, do pool
+ * de quem a abriu.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CargaAnaliticaAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(CargaAnaliticaAspect.class);
+
+    @Around("@within(com.nanas.nanas.config.CargaAnalitica) || @annotation(com.nanas.nanas.config.CargaAnalitica)")
+    public Object marcarCargaAnalitica(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (RoteamentoDataSource.isCargaAnalitica()) {
+            return joinPoint.proceed();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive() && logger.isDebugEnabled()) {
+            logger.debug("{} chamado dentro de uma transação aberta; segue na conexão dela, fora do pool analítico",
+                    joinPoint.getSignature().toShortString());
+        }
+        RoteamentoDataSource.iniciarCargaAnalitica();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoteamentoDataSource.encerrarCargaAnalitica();
+        }
+    }
+}
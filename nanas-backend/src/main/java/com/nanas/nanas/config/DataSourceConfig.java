@@ -0,0 +1,74 @@
+package com.nanas.nanas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Pools de conexão do primário (operações e analítico) e, se configurada, da réplica de leitura.
+ * O DataSource usado por JPA e Flyway roteia entre os dois (ver RoteamentoDataSource);
+ * sem datasource.replica.url tudo continua indo para o primário.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("nanas-primario");
+        return dataSource;
+    }
+
+    // Mesmo banco do primário, com pool próprio e statement_timeout (ver application.properties)
+    @Bean
+    @ConfigurationProperties("datasource.analitico.hikari")
+    public HikariDataSource dataSourceAnalitico(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("nanas-analitico");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnExpression("!'${datasource.replica.url:}'.isEmpty()")
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(DataSourceProperties properties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username}") String username,
+                                              @Value("${datasource.replica.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("nanas-replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        // A aplicação sobe mesmo com a réplica fora do ar; as leituras caem no primário
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public RoteamentoDataSource dataSourceRoteado(@Qualifier("dataSourcePrimario") DataSource primario,
+                                                  @Qualifier("dataSourceAnalitico") DataSource analitico,
+                                                  @Qualifier("dataSourceReplica") ObjectProvider<DataSource> replica,
+                                                  @Value("${datasource.replica.pausa-apos-falha-ms:30000}") long pausaAposFalha) {
+        return new RoteamentoDataSource(primario, analitico, replica.getIfAvailable(), pausaAposFalha);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource dataSourceRoteado) {
+        return new LazyConnectionDataSourceProxy(dataSourceRoteado);
+    }
+}
@@ -0,0 +1,60 @@
+package com.nanas.nanas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor das seções independentes de relatórios. O tamanho acompanha o pool
+ * analítico: threads além das conexões disponíveis só esperariam por elas.
+ * Com a fila cheia a seção roda na própria thread da requisição.
+ */
+@Configuration
+public class ExecutorSecoesConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor executorSecoes(MeterRegistry meterRegistry,
+                                                 @Value("${relatorios.secoes.threads:4}") int threads,
+                                                 @Value("${relatorios.secoes.fila:100}") int fila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("secoes-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(propagarCargaAnalitica());
+        executor.initialize();
+        // executor.pool.*, executor.queued, executor.completed etc. com name=secoes
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "secoes", Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    // A marca de carga analítica é ThreadLocal: a seção herda a da thread que a submeteu
+    private static TaskDecorator propagarCargaAnalitica() {
+        return tarefa -> {
+            if (!RoteamentoDataSource.isCargaAnalitica()) {
+                return tarefa;
+            }
+            return () -> {
+                // Rodando na própria thread (fila cheia), a marca já existe e não pode ser removida
+                if (RoteamentoDataSource.isCargaAnalitica()) {
+                    tarefa.run();
+                    return;
+                }
+                RoteamentoDataSource.iniciarCargaAnalitica();
+                try {
+                    tarefa.run();
+                } finally {
+                    RoteamentoDataSource.encerrarCargaAnalitica();
+                }
+            };
+        };
+    }
+}
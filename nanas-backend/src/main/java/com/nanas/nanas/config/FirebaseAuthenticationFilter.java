@@ -1,8 +1,16 @@
 package com.nanas.nanas.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
+import com.nanas.nanas.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,19 +22,42 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro de autenticação Firebase que valida o token JWT em cada requisição.
  * Extrai o Firebase UID do token e define no contexto de segurança.
+ * Tokens já verificados ficam em cache (pelo hash SHA-256) até o exp do
+ * próprio token, para que as várias chamadas de uma mesma tela não repitam
+ * a verificação da assinatura.
  */
 @Component
 public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
 
     private final FirebaseAuth firebaseAuth;
+    private final AuthService authService;
+    private final Cache<String, TokenVerificado> tokensVerificados;
+    private final Timer tempoVerificacao;
 
-    public FirebaseAuthenticationFilter(FirebaseAuth firebaseAuth) {
+    public FirebaseAuthenticationFilter(FirebaseAuth firebaseAuth, AuthService authService, MeterRegistry meterRegistry,
+            @Value("${autenticacao.tokens.cache.tamanho-maximo:10000}") long tamanhoMaximoCache) {
         this.firebaseAuth = firebaseAuth;
+        this.authService = authService;
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfter(new ExpiracaoDoToken())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "firebase_tokens");
+        this.tempoVerificacao = Timer.builder("firebase.token.verificacao")
+                .description("Verificação de assinatura e claims do ID token")
+                .register(meterRegistry);
     }
 
     @Override
@@ -42,7 +73,7 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
             String legacyUserId = request.getHeader("user_id");
             if (legacyUserId != null && !legacyUserId.isEmpty()) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        legacyUserId, null, Collections.emptyList());
+                        principal(legacyUserId), null, Collections.emptyList());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -53,10 +84,9 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
         String idToken = authHeader.substring(7); // Remove "Bearer "
 
         try {
-            FirebaseToken decodedToken = firebaseAuth.verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
+            String uid = verificarToken(idToken);
 
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(uid, null,
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal(uid), null,
                     Collections.emptyList());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -72,10 +102,84 @@ public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private String verificarToken(String idToken) throws FirebaseAuthException {
+        String chave = resumir(idToken);
+        TokenVerificado verificado = tokensVerificados.getIfPresent(chave);
+        if (verificado != null) {
+            return verificado.uid;
+        }
+
+        FirebaseToken decodedToken;
+        long inicio = System.nanoTime();
+        try {
+            decodedToken = firebaseAuth.verifyIdToken(idToken);
+        } finally {
+            tempoVerificacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        // Token sem exp numérico não entra no cache
+        Object exp = decodedToken.getClaims().get("exp");
+        if (exp instanceof Number) {
+            tokensVerificados.put(chave, new TokenVerificado(decodedToken.getUid(),
+                    TimeUnit.SECONDS.toMillis(((Number) exp).longValue())));
+        }
+        return decodedToken.getUid();
+    }
+
+    private static String resumir(String idToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(idToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Usuário local já resolvido (via cache do AuthService), para que os controllers
+     * não precisem consultá-lo de novo; o próprio UID quando ainda não há cadastro.
+     */
+    private Object principal(String uid) {
+        Optional<UsuarioAutenticado> usuario = authService.buscarUsuario(uid);
+        if (usuario.isPresent()) {
+            return usuario.get();
+        }
+        return uid;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
         // Não filtrar endpoints públicos
         return path.startsWith("/api/auth/");
     }
+
+    private static final class TokenVerificado {
+        private final String uid;
+        private final long expiraEmMillis;
+
+        private TokenVerificado(String uid, long expiraEmMillis) {
+            this.uid = uid;
+            this.expiraEmMillis = expiraEmMillis;
+        }
+    }
+
+    // Cada entrada vive até o exp do token que a originou
+    private static final class ExpiracaoDoToken implements Expiry<String, TokenVerificado> {
+
+        @Override
+        public long expireAfterCreate(String chave, TokenVerificado token, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiraEmMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, TokenVerificado token, long currentTime, long currentDuration) {
+            return expireAfterCreate(chave, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, TokenVerificado token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package com.nanas.nanas.config;
 
+import com.google.api.client.http.HttpTransport;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.FirebaseAuth;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -25,13 +29,27 @@ public class FirebaseConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(FirebaseConfig.class);
 
+    @Value("${firebase.project-id:}")
+    private String projectIdConfigurado;
+
+    /**
+     * Um bean HttpTransport, quando existir, substitui o transporte do SDK. É
+     * por ele que o SDK busca os certificados de verificação dos ID tokens;
+     * os testes o usam para servir um conjunto local de chaves.
+     */
     @Bean
-    public FirebaseApp firebaseApp() throws IOException {
+    public FirebaseApp firebaseApp(ObjectProvider<HttpTransport> transporte) throws IOException {
         InputStream serviceAccount = getFirebaseCredentials();
+        GoogleCredentials credenciais = GoogleCredentials.fromStream(serviceAccount);
 
-        FirebaseOptions options = new FirebaseOptions.Builder()
-                .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                .build();
+        FirebaseOptions.Builder builder = new FirebaseOptions.Builder()
+                .setCredentials(credenciais);
+        String projectId = resolverProjectId(credenciais);
+        if (projectId != null) {
+            builder.setProjectId(projectId);
+        }
+        transporte.ifAvailable(builder::setHttpTransport);
+        FirebaseOptions options = builder.build();
 
         // Evita erro de reinicialização em ambiente de desenvolvimento
         if (FirebaseApp.getApps().isEmpty()) {
@@ -48,6 +66,19 @@ public class FirebaseConfig {
         return FirebaseAuth.getInstance(firebaseApp);
     }
 
+    /**
+     * Project ID de firebase.project-id ou, sem ele, o da conta de serviço.
+     */
+    private String resolverProjectId(GoogleCredentials credenciais) {
+        if (projectIdConfigurado != null && !projectIdConfigurado.isBlank()) {
+            return projectIdConfigurado.trim();
+        }
+        if (credenciais instanceof ServiceAccountCredentials) {
+            return ((ServiceAccountCredentials) credenciais).getProjectId();
+        }
+        return null;
+    }
+
     /**
      * Obtém as credenciais do Firebase de uma das seguintes fontes (em ordem de
      * prioridade):
@@ -0,0 +1,98 @@
+package com.nanas.nanas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Entrega conexões da réplica para transações readOnly e do primário para
+ * o resto. No primário há dois pools: o das operações do dia a dia e o
+ * analítico, usado dentro de chamadas {@link CargaAnalitica}, para que
+ * relatórios lentos não esgotem as conexões de quem grava.
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy: a escolha
+ * acontece no primeiro comando, quando o readOnly da transação já é conhecido.
+ * Depende de spring.jpa.open-in-view=false: com a sessão aberta durante toda
+ * a requisição, a primeira conexão obtida serviria a todas as transações dela.
+ * <p>
+ * Depois que uma requisição HTTP abre uma transação de escrita, as leituras
+ * seguintes da mesma requisição também vão para o primário, para que enxerguem
+ * o que acabou de ser gravado mesmo com atraso de replicação.
+ */
+public class RoteamentoDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+    private static final String ATRIBUTO_ESCRITA = RoteamentoDataSource.class.getName() + ".ESCRITA";
+
+    private static final ThreadLocal<Boolean> CARGA_ANALITICA = new ThreadLocal<>();
+
+    private final DataSource primario;
+    private final DataSource analitico;
+    private final DataSource replica;
+    private final long pausaAposFalhaMillis;
+
+    // Após uma falha, a réplica fica fora do roteamento até este instante
+    private volatile long replicaIndisponivelAte;
+
+    public RoteamentoDataSource(DataSource primario, DataSource analitico, DataSource replica, long pausaAposFalhaMillis) {
+        this.primario = primario;
+        this.analitico = analitico;
+        this.replica = replica;
+        this.pausaAposFalhaMillis = pausaAposFalhaMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (usarReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaIndisponivelAte = System.currentTimeMillis() + pausaAposFalhaMillis;
+                logger.warn("Réplica de leitura indisponível, usando o primário por {} ms: {}",
+                        pausaAposFalhaMillis, e.getMessage());
+            }
+        }
+        return isCargaAnalitica() ? analitico.getConnection() : primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primario.getConnection(username, password);
+    }
+
+    public static boolean isCargaAnalitica() {
+        return CARGA_ANALITICA.get() != null;
+    }
+
+    static void iniciarCargaAnalitica() {
+        CARGA_ANALITICA.set(Boolean.TRUE);
+    }
+
+    static void encerrarCargaAnalitica() {
+        CARGA_ANALITICA.remove();
+    }
+
+    private boolean usarReplica() {
+        if (replica == null) {
+            return false;
+        }
+        RequestAttributes requisicao = RequestContextHolder.getRequestAttributes();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (requisicao != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                requisicao.setAttribute(ATRIBUTO_ESCRITA, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            return false;
+        }
+        if (requisicao != null && requisicao.getAttribute(ATRIBUTO_ESCRITA, RequestAttributes.SCOPE_REQUEST) != null) {
+            return false;
+        }
+        return System.currentTimeMillis() >= replicaIndisponivelAte;
+    }
+}
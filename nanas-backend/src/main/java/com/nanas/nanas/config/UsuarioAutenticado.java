@@ -0,0 +1,23 @@
+package com.nanas.nanas.config;
+
+import lombok.Value;
+
+import java.security.Principal;
+
+/**
+ * Dados do usuário local guardados no principal da autenticação e no cache
+ * de UIDs do AuthService. É uma cópia imutável, não uma entidade gerenciada.
+ * Como Principal, getName() continua sendo o Firebase UID.
+ */
+@Value
+public class UsuarioAutenticado implements Principal {
+    Long id;
+    String firebaseUid;
+    String nome;
+    String email;
+
+    @Override
+    public String getName() {
+        return firebaseUid;
+    }
+}
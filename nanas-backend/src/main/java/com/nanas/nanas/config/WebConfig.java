@@ -2,8 +2,11 @@ package com.nanas.nanas.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
 
 /**
  * Configuração CORS para permitir requisições do frontend.
@@ -21,7 +24,20 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins.split(","))
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "ETag")
                 .maxAge(3600);
     }
+
+    /**
+     * Leituras com ETag: o navegador guarda a resposta, mas revalida sempre
+     * (If-None-Match). Sem isso valeria o no-store padrão do Spring Security.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor interceptor = new WebContentInterceptor();
+        interceptor.addCacheMapping(CacheControl.noCache().cachePrivate(),
+                "/api/dashboard/**", "/api/insights", "/api/relatorios/mensal/**",
+                "/api/carteiras", "/api/categorias");
+        registry.addInterceptor(interceptor);
+    }
 }
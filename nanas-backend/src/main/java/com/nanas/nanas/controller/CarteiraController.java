@@ -5,9 +5,11 @@ import com.nanas.nanas.dto.CarteiraResponse;
 import com.nanas.nanas.dto.TransferenciaRequest;
 import com.nanas.nanas.service.CarteiraService;
 import com.nanas.nanas.service.AuthService;
+import com.nanas.nanas.service.VersaoDadosService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -21,26 +23,33 @@ public class CarteiraController {
 
     private final CarteiraService carteiraService;
     private final AuthService authService;
+    private final VersaoDadosService versaoDadosService;
 
-    public CarteiraController(CarteiraService carteiraService, AuthService authService) {
+    public CarteiraController(CarteiraService carteiraService, AuthService authService,
+                              VersaoDadosService versaoDadosService) {
         this.carteiraService = carteiraService;
         this.authService = authService;
+        this.versaoDadosService = versaoDadosService;
     }
 
     @PostMapping
     public ResponseEntity<CarteiraResponse> criarCarteira(
             @RequestHeader("user_id") String userId,
             @Valid @RequestBody CarteiraRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CarteiraResponse response = carteiraService.criarCarteira(usuario.getId(), request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     @GetMapping
     public ResponseEntity<List<CarteiraResponse>> buscarCarteirasPorUsuario(
-            @RequestHeader("user_id") String userId) {
+            @RequestHeader("user_id") String userId,
+            WebRequest webRequest) {
         // user_id agora é OBRIGATÓRIO - não permite mais buscar todas as carteiras
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuario.getId()))) {
+            return null;
+        }
         List<CarteiraResponse> response = carteiraService.buscarCarteirasPorUsuario(usuario.getId());
         return ResponseEntity.ok(response);
     }
@@ -49,7 +58,7 @@ public class CarteiraController {
     public ResponseEntity<CarteiraResponse> buscarCarteiraPorId(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CarteiraResponse response = carteiraService.buscarCarteiraPorId(usuario.getId(), id);
         return ResponseEntity.ok(response);
     }
@@ -59,7 +68,7 @@ public class CarteiraController {
             @RequestHeader("user_id") String userId,
             @PathVariable Long id,
             @Valid @RequestBody CarteiraRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CarteiraResponse response = carteiraService.atualizarCarteira(usuario.getId(), id, request);
         return ResponseEntity.ok(response);
     }
@@ -68,7 +77,7 @@ public class CarteiraController {
     public ResponseEntity<Void> deletarCarteira(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         carteiraService.deletarCarteira(usuario.getId(), id);
         return ResponseEntity.noContent().build();
     }
@@ -77,7 +86,7 @@ public class CarteiraController {
     public ResponseEntity<Void> transferirEntreCarteiras(
             @RequestHeader("user_id") String userId,
             @Valid @RequestBody TransferenciaRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         carteiraService.transferirEntreCarteiras(
                 usuario.getId(),
                 request.getCarteiraOrigemId(),
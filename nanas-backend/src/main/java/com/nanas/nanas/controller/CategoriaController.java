@@ -4,9 +4,11 @@ import com.nanas.nanas.dto.CategoriaRequest;
 import com.nanas.nanas.dto.CategoriaResponse;
 import com.nanas.nanas.service.CategoriaService;
 import com.nanas.nanas.service.AuthService;
+import com.nanas.nanas.service.VersaoDadosService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -20,26 +22,33 @@ public class CategoriaController {
 
     private final CategoriaService categoriaService;
     private final AuthService authService;
+    private final VersaoDadosService versaoDadosService;
 
-    public CategoriaController(CategoriaService categoriaService, AuthService authService) {
+    public CategoriaController(CategoriaService categoriaService, AuthService authService,
+                               VersaoDadosService versaoDadosService) {
         this.categoriaService = categoriaService;
         this.authService = authService;
+        this.versaoDadosService = versaoDadosService;
     }
 
     @PostMapping
     public ResponseEntity<CategoriaResponse> criarCategoria(
             @RequestHeader("user_id") String userId,
             @Valid @RequestBody CategoriaRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CategoriaResponse response = categoriaService.criarCategoria(usuario.getId(), request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     @GetMapping
     public ResponseEntity<List<CategoriaResponse>> buscarCategoriasPorUsuario(
-            @RequestHeader("user_id") String userId) {
+            @RequestHeader("user_id") String userId,
+            WebRequest webRequest) {
         // user_id agora é OBRIGATÓRIO
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuario.getId()))) {
+            return null;
+        }
         List<CategoriaResponse> response = categoriaService.buscarCategoriasPorUsuario(usuario.getId());
         return ResponseEntity.ok(response);
     }
@@ -48,7 +57,7 @@ public class CategoriaController {
     public ResponseEntity<CategoriaResponse> buscarCategoriaPorId(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CategoriaResponse response = categoriaService.buscarCategoriaPorId(usuario.getId(), id);
         return ResponseEntity.ok(response);
     }
@@ -58,7 +67,7 @@ public class CategoriaController {
             @RequestHeader("user_id") String userId,
             @PathVariable Long id,
             @Valid @RequestBody CategoriaRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         CategoriaResponse response = categoriaService.atualizarCategoria(usuario.getId(), id, request);
         return ResponseEntity.ok(response);
     }
@@ -67,7 +76,7 @@ public class CategoriaController {
     public ResponseEntity<Void> deletarCategoria(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         categoriaService.deletarCategoria(usuario.getId(), id);
         return ResponseEntity.noContent().build();
     }
@@ -3,12 +3,14 @@ package com.nanas.nanas.controller;
 import com.nanas.nanas.dto.DespesaPorCategoriaDTO;
 import com.nanas.nanas.dto.EvolucaoSaldoDTO;
 import com.nanas.nanas.service.DashboardService;
+import com.nanas.nanas.service.VersaoDadosService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -21,14 +23,23 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
     @GetMapping("/summary")
-    public ResponseEntity<Map<String, Object>> getDashboardSummary(@RequestParam Long usuarioId) {
+    public ResponseEntity<Map<String, Object>> getDashboardSummary(@RequestParam Long usuarioId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+            return null;
+        }
         Map<String, Object> summary = dashboardService.getSummary(usuarioId);
         return ResponseEntity.ok(summary);
     }
 
     @GetMapping("/despesas-por-categoria")
-    public ResponseEntity<List<DespesaPorCategoriaDTO>> getDespesasPorCategoria(@RequestParam Long usuarioId) {
+    public ResponseEntity<List<DespesaPorCategoriaDTO>> getDespesasPorCategoria(@RequestParam Long usuarioId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+            return null;
+        }
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.withDayOfMonth(1); 
         List<DespesaPorCategoriaDTO> despesas = dashboardService.getDespesasPorCategoria(usuarioId, startDate, endDate);
@@ -36,7 +47,10 @@ public class DashboardController {
     }
 
     @GetMapping("/evolucao-saldo")
-    public ResponseEntity<List<EvolucaoSaldoDTO>> getEvolucaoSaldo(@RequestParam Long usuarioId) {
+    public ResponseEntity<List<EvolucaoSaldoDTO>> getEvolucaoSaldo(@RequestParam Long usuarioId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+            return null;
+        }
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusMonths(6);
         List<EvolucaoSaldoDTO> evolucao = dashboardService.getEvolucaoSaldo(usuarioId, startDate, endDate, null); 
@@ -0,0 +1,57 @@
+package com.nanas.nanas.controller;
+
+import com.nanas.nanas.service.AuthService;
+import com.nanas.nanas.service.ExportacaoService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller para exportação do histórico de transações do usuário.
+ */
+@RestController
+@RequestMapping("/api/exportacoes")
+public class ExportacaoController {
+
+    private final ExportacaoService exportacaoService;
+    private final AuthService authService;
+
+    public ExportacaoController(ExportacaoService exportacaoService, AuthService authService) {
+        this.exportacaoService = exportacaoService;
+        this.authService = authService;
+    }
+
+    @GetMapping("/transacoes")
+    public ResponseEntity<StreamingResponseBody> exportarTransacoes(
+            @RequestHeader("user_id") String userId,
+            @RequestParam(required = false) String formato) {
+        var usuario = authService.resolverUsuario(userId);
+        ExportacaoService.Formato formatoExportacao = ExportacaoService.Formato.de(formato);
+        StreamingResponseBody body = outputStream ->
+                exportacaoService.exportarTransacoes(usuario.getId(), formatoExportacao, outputStream);
+        return criarResposta("transacoes", formatoExportacao, body);
+    }
+
+    @GetMapping("/transacoes-cartao")
+    public ResponseEntity<StreamingResponseBody> exportarTransacoesCartao(
+            @RequestHeader("user_id") String userId,
+            @RequestParam(required = false) String formato) {
+        var usuario = authService.resolverUsuario(userId);
+        ExportacaoService.Formato formatoExportacao = ExportacaoService.Formato.de(formato);
+        StreamingResponseBody body = outputStream ->
+                exportacaoService.exportarTransacoesCartao(usuario.getId(), formatoExportacao, outputStream);
+        return criarResposta("transacoes-cartao", formatoExportacao, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> criarResposta(String nomeArquivo,
+                                                                ExportacaoService.Formato formato,
+                                                                StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + nomeArquivo + "." + formato.getExtensao() + "\"")
+                .contentType(MediaType.parseMediaType(formato.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+}
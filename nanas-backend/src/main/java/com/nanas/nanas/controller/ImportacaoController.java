@@ -0,0 +1,62 @@
+package com.nanas.nanas.controller;
+
+import com.nanas.nanas.dto.ImportacaoResponse;
+import com.nanas.nanas.service.AuthService;
+import com.nanas.nanas.service.ImportacaoService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Controller para importação de extratos bancários em uma carteira.
+ */
+@RestController
+@RequestMapping("/api/importacoes")
+public class ImportacaoController {
+
+    private final ImportacaoService importacaoService;
+    private final AuthService authService;
+
+    public ImportacaoController(ImportacaoService importacaoService, AuthService authService) {
+        this.importacaoService = importacaoService;
+        this.authService = authService;
+    }
+
+    @PostMapping(value = "/extrato", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoResponse> importarExtrato(
+            @RequestHeader("user_id") String userId,
+            @RequestParam Long carteiraId,
+            @RequestParam("arquivo") MultipartFile arquivo,
+            @RequestParam(required = false) String formato,
+            @RequestParam(defaultValue = "UTF-8") String charset) throws IOException {
+        var usuario = authService.resolverUsuario(userId);
+        if (arquivo.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Arquivo de extrato vazio");
+        }
+        ImportacaoService.Formato formatoImportacao =
+                ImportacaoService.Formato.de(formato, arquivo.getOriginalFilename());
+
+        try (InputStream entrada = arquivo.getInputStream()) {
+            ImportacaoResponse response = importacaoService.importarExtrato(
+                    usuario.getId(), carteiraId, formatoImportacao, converterCharset(charset), entrada);
+            return new ResponseEntity<>(response, HttpStatus.CREATED);
+        }
+    }
+
+    private Charset converterCharset(String charset) {
+        try {
+            return Charset.forName(charset);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Charset inválido: " + charset);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.nanas.nanas.controller;
 
 import com.nanas.nanas.dto.InsightDTO;
+import com.nanas.nanas.service.AuthService;
 import com.nanas.nanas.service.InsightService;
+import com.nanas.nanas.service.VersaoDadosService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,11 +19,18 @@ import java.util.List;
 public class InsightController {
     
     private final InsightService insightService;
+    private final AuthService authService;
+    private final VersaoDadosService versaoDadosService;
     
   @GetMapping
 public ResponseEntity<List<InsightDTO>> gerarInsights(
-        @RequestHeader("user_id") String firebaseUid
+        @RequestHeader("user_id") String firebaseUid,
+        WebRequest webRequest
 ) {
+    Long usuarioId = authService.resolverUsuario(firebaseUid).getId();
+    if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+        return null;
+    }
     List<InsightDTO> insights = insightService.gerarInsights(firebaseUid);
     return ResponseEntity.ok(insights);
 }
@@ -1,10 +1,14 @@
 package com.nanas.nanas.controller;
 
 import com.nanas.nanas.dto.RelatorioMensalDTO;
+import com.nanas.nanas.service.AuthService;
 import com.nanas.nanas.service.RelatorioMensalService;
+import com.nanas.nanas.service.VersaoDadosService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/relatorios")
@@ -13,23 +17,42 @@ import org.springframework.web.bind.annotation.*;
 public class RelatorioMensalController {
 
     private final RelatorioMensalService relatorioMensalService;
+    private final AuthService authService;
+    private final VersaoDadosService versaoDadosService;
 
     @GetMapping("/mensal")
     public ResponseEntity<RelatorioMensalDTO> gerarRelatorioMensal(
             @RequestParam Integer ano,
             @RequestParam Integer mes,
-            @RequestHeader("user_id") String firebaseUid
+            @RequestHeader("user_id") String firebaseUid,
+            WebRequest webRequest
     ) {
+        Long usuarioId = authService.resolverUsuario(firebaseUid).getId();
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+            return null;
+        }
         RelatorioMensalDTO relatorio = relatorioMensalService.gerarRelatorioMensal(firebaseUid, ano, mes);
-        return ResponseEntity.ok(relatorio);
+        return responder(relatorio);
     }
 
     @GetMapping("/mensal/atual")
     public ResponseEntity<RelatorioMensalDTO> gerarRelatorioMesAtual(
-            @RequestHeader("user_id") String firebaseUid
+            @RequestHeader("user_id") String firebaseUid,
+            WebRequest webRequest
     ) {
+        Long usuarioId = authService.resolverUsuario(firebaseUid).getId();
+        if (webRequest.checkNotModified(versaoDadosService.etag(usuarioId))) {
+            return null;
+        }
         RelatorioMensalDTO relatorio = relatorioMensalService.gerarRelatorioMesAtual(firebaseUid);
-        return ResponseEntity.ok(relatorio);
+        return responder(relatorio);
     }
 
+    // Relatório parcial (alguma seção falhou) não pode ser revalidado pela ETag
+    private ResponseEntity<RelatorioMensalDTO> responder(RelatorioMensalDTO relatorio) {
+        if (!relatorio.getSecoesIndisponiveis().isEmpty()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(relatorio);
+        }
+        return ResponseEntity.ok(relatorio);
+    }
 }
@@ -47,4 +47,25 @@ public ResponseEntity<TransacaoCartaoCreditoDTO> create(
         List<TransacaoCartaoCreditoDTO> transacoes = transacaoService.getByCartaoAndUsuario(cartaoId, usuarioId);
         return ResponseEntity.ok(transacoes);
     }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<TransacaoCartaoCreditoDTO> update(
+            @PathVariable Long usuarioId,
+            @PathVariable Long cartaoId,
+            @PathVariable Long id,
+            @Valid @RequestBody TransacaoCartaoCreditoDTO dto) {
+
+        dto.setUsuarioId(usuarioId);
+        dto.setCartaoCreditoId(cartaoId);
+        return ResponseEntity.ok(transacaoService.update(id, dto));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(
+            @PathVariable Long usuarioId,
+            @PathVariable Long cartaoId,
+            @PathVariable Long id) {
+        transacaoService.delete(id, cartaoId, usuarioId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,5 +1,7 @@
 package com.nanas.nanas.controller;
 
+import com.nanas.nanas.dto.TransacaoLoteRequest;
+import com.nanas.nanas.dto.TransacaoPaginaResponse;
 import com.nanas.nanas.dto.TransacaoRequest;
 import com.nanas.nanas.dto.TransacaoResponse;
 import com.nanas.nanas.service.TransacaoService;
@@ -30,25 +32,44 @@ public class TransacaoController {
     public ResponseEntity<TransacaoResponse> criarTransacao(
             @RequestHeader("user_id") String userId,
             @Valid @RequestBody TransacaoRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         TransacaoResponse response = transacaoService.criarTransacao(usuario.getId(), request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransacaoResponse>> criarTransacoesEmLote(
+            @RequestHeader("user_id") String userId,
+            @Valid @RequestBody TransacaoLoteRequest request) {
+        var usuario = authService.resolverUsuario(userId);
+        List<TransacaoResponse> response = transacaoService.criarTransacoesEmLote(usuario.getId(), request.getTransacoes());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
     @GetMapping
     public ResponseEntity<List<TransacaoResponse>> listarTransacoes(
             @RequestHeader("user_id") String userId) {
         // user_id agora é OBRIGATÓRIO - não permite mais buscar todas as transações
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         List<TransacaoResponse> response = transacaoService.buscarTransacoesPorUsuario(usuario.getId());
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(params = "limite")
+    public ResponseEntity<TransacaoPaginaResponse> listarTransacoesPaginadas(
+            @RequestHeader("user_id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limite) {
+        var usuario = authService.resolverUsuario(userId);
+        TransacaoPaginaResponse response = transacaoService.buscarPaginaTransacoes(usuario.getId(), cursor, limite);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransacaoResponse> buscarTransacaoPorId(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         TransacaoResponse response = transacaoService.buscarTransacaoPorId(usuario.getId(), id);
         return ResponseEntity.ok(response);
     }
@@ -58,7 +79,7 @@ public class TransacaoController {
             @RequestHeader("user_id") String userId,
             @PathVariable Long id,
             @Valid @RequestBody TransacaoRequest request) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         TransacaoResponse response = transacaoService.atualizarTransacao(usuario.getId(), id, request);
         return ResponseEntity.ok(response);
     }
@@ -67,7 +88,7 @@ public class TransacaoController {
     public ResponseEntity<Void> deletarTransacao(
             @RequestHeader("user_id") String userId,
             @PathVariable Long id) {
-        var usuario = authService.findByFirebaseUid(userId);
+        var usuario = authService.resolverUsuario(userId);
         transacaoService.deletarTransacao(usuario.getId(), id);
         return ResponseEntity.noContent().build();
     }
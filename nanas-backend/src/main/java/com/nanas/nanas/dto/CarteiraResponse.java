@@ -4,11 +4,13 @@ import com.nanas.nanas.model.Carteira;
 import com.nanas.nanas.model.enums.TipoCarteira;
 import lombok.Data;
 import lombok.NoArgsConstructor; 
+import lombok.AllArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor 
+@AllArgsConstructor
 public class CarteiraResponse {
     private Long id;
     private String nome;
@@ -1,8 +1,12 @@
 package com.nanas.nanas.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class CategoriaResponse {
     private Long id;
     private String nome;
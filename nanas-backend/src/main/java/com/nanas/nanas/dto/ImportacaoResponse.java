@@ -0,0 +1,23 @@
+package com.nanas.nanas.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado da importação de um extrato.
+ * erros traz apenas as primeiras linhas rejeitadas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoResponse {
+    private int importadas;
+    private int ignoradas;
+    private BigDecimal totalReceitas;
+    private BigDecimal totalDespesas;
+    private BigDecimal saldoCarteira;
+    private List<String> erros;
+}
@@ -7,6 +7,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import com.nanas.nanas.model.Meta;
+import com.nanas.nanas.model.enums.PeriodoMeta;
 
 @Data
 @AllArgsConstructor
@@ -24,6 +25,21 @@ public class MetaResponse {
     private String categoriaNome;
     private BigDecimal percentualAtingido;
 
+    // Usado pelas projeções JPQL (SELECT new ...) do MetaRepository
+    public MetaResponse(Long id, String nome, BigDecimal valorMeta, BigDecimal valorAtual,
+                        LocalDate dataInicio, LocalDate dataFim, PeriodoMeta periodo, Boolean ativa,
+                        Long categoriaId, String categoriaNome) {
+        this(id, nome, valorMeta, valorAtual, dataInicio, dataFim, periodo.name(), ativa,
+                categoriaId, categoriaNome, calcularPercentual(valorMeta, valorAtual));
+    }
+
+    private static BigDecimal calcularPercentual(BigDecimal valorMeta, BigDecimal valorAtual) {
+        if (valorMeta == null || valorMeta.compareTo(BigDecimal.ZERO) == 0 || valorAtual == null) {
+            return BigDecimal.ZERO;
+        }
+        return valorAtual.multiply(BigDecimal.valueOf(100)).divide(valorMeta, 2, RoundingMode.HALF_UP);
+    }
+
     public static MetaResponse fromEntity(Meta meta) {
         BigDecimal percentual = meta.getValorMeta().compareTo(BigDecimal.ZERO) > 0
                 ? meta.getValorAtual().multiply(new BigDecimal(100)).divide(meta.getValorMeta(), 2, RoundingMode.HALF_UP)
@@ -22,4 +22,5 @@ public class RelatorioMensalDTO {
     private List<TransacaoResumoDTO> maioresTransacoes;
     private ResumoCarteirasDTO resumoCarteiras;
     private String statusFinanceiro; // POSITIVO, NEUTRO, NEGATIVO
+    private List<String> secoesIndisponiveis; // seções que falharam; vêm vazias ou zeradas
 }
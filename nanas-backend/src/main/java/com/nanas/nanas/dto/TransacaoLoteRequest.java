@@ -0,0 +1,23 @@
+package com.nanas.nanas.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * DTO para criação de várias transações em uma única requisição.
+ * O limite de itens é definido por transacoes.lote.tamanho-maximo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransacaoLoteRequest {
+
+    @Valid
+    @NotEmpty(message = "Informe ao menos uma transação")
+    private List<TransacaoRequest> transacoes;
+}
@@ -0,0 +1,18 @@
+package com.nanas.nanas.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+/**
+ * Página de transações ordenada por data e id decrescentes.
+ * nextCursor é opaco e vem nulo quando não há mais páginas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransacaoPaginaResponse {
+    private List<TransacaoResponse> transacoes;
+    private String nextCursor;
+}
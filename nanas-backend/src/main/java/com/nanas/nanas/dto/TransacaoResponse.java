@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Data
 @NoArgsConstructor
@@ -20,5 +21,15 @@ public class TransacaoResponse {
     private String carteiraDestinoNome;
     private Long categoriaId;
     private String categoriaNome;
+
+    // Usado pelas projeções JPQL (SELECT new ...) dos repositórios
+    public TransacaoResponse(Long id, String descricao, BigDecimal valor, String tipo, LocalDate data,
+                             Long carteiraOrigemId, String carteiraOrigemNome,
+                             Long carteiraDestinoId, String carteiraDestinoNome,
+                             Long categoriaId, String categoriaNome) {
+        this(id, descricao, valor, tipo, data != null ? data.toString() : null,
+                carteiraOrigemId, carteiraOrigemNome, carteiraDestinoId, carteiraDestinoNome,
+                categoriaId, categoriaNome);
+    }
 }
 
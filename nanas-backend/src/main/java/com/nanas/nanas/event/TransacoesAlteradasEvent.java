@@ -0,0 +1,41 @@
+package com.nanas.nanas.event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Publicado pelos serviços que gravam transações (de conta ou de cartão)
+ * de um usuário, com os meses afetados. Caches derivados das transações
+ * escutam este evento para se invalidar.
+ */
+public class TransacoesAlteradasEvent {
+
+    private final Long usuarioId;
+    private final Set<YearMonth> meses;
+
+    public TransacoesAlteradasEvent(Long usuarioId, Collection<LocalDate> datas) {
+        this.usuarioId = usuarioId;
+        Set<YearMonth> afetados = new TreeSet<>();
+        for (LocalDate data : datas) {
+            afetados.add(YearMonth.from(data));
+        }
+        this.meses = Collections.unmodifiableSet(afetados);
+    }
+
+    public static TransacoesAlteradasEvent de(Long usuarioId, LocalDate... datas) {
+        return new TransacoesAlteradasEvent(usuarioId, Arrays.asList(datas));
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public Set<YearMonth> getMeses() {
+        return meses;
+    }
+}
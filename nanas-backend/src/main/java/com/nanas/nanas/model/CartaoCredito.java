@@ -23,7 +23,7 @@ public class CartaoCredito extends BaseEntity {
 
     private Integer diaVencimento;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 }
@@ -3,6 +3,7 @@ package com.nanas.nanas.model;
 import com.nanas.nanas.model.enums.TipoCarteira; 
 import javax.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 import java.math.BigDecimal;
 
 @Data
@@ -16,13 +17,19 @@ public class Carteira extends BaseEntity {
 
     private String nome;
 
+    // Último checkpoint + cauda do diário (movimentos_carteira); somente leitura
+    @Formula("saldo_carteira(id)")
     private BigDecimal saldo;
 
+    // Só edições da carteira (nome) a incrementam; saldos vão para o diário
+    @Version
+    private Long versao;
+
     @Enumerated(EnumType.STRING) 
     @Column(nullable = false) 
     private TipoCarteira tipo;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 }
@@ -17,7 +17,8 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Meta extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "metaSeq")
+    @SequenceGenerator(name = "metaSeq", sequenceName = "metas_id_seq", allocationSize = 50)
     private Long id;
     
     private String nome;
@@ -31,11 +32,11 @@ public class Meta extends BaseEntity {
     
     private Boolean ativa = true;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = true)
     private Categoria categoria;
     
@@ -0,0 +1,43 @@
+package com.nanas.nanas.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Movimento no diário da carteira: crédito (valor positivo) ou débito
+ * (negativo). O diário é somente inserção; o saldo da carteira é o último
+ * checkpoint somado aos movimentos posteriores a ele.
+ */
+@Entity
+@Immutable
+@Table(name = "movimentos_carteira")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimentoCarteira extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "carteira_id", nullable = false)
+    private Long carteiraId;
+
+    // Data de competência, usada nos saldos históricos
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private BigDecimal valor;
+
+    private String descricao;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+}
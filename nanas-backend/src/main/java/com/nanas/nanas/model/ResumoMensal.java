@@ -0,0 +1,52 @@
+package com.nanas.nanas.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Consolidado mensal de transações por usuário, categoria, tipo e carteira.
+ * Mantido incrementalmente pelas escritas de transações e reconstruído
+ * periodicamente a partir dos dados brutos.
+ */
+@Entity
+@Table(name = "resumo_mensal",
+       uniqueConstraints = @UniqueConstraint(name = "uk_resumo_mensal_chave",
+               columnNames = {"usuario_id", "mes_referencia", "categoria_id", "tipo", "carteira_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal extends BaseEntity {
+
+    // Usado em categoria_id/carteira_id quando a transação não tem a referência
+    public static final Long SEM_REFERENCIA = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    // Primeiro dia do mês consolidado
+    @Column(name = "mes_referencia", nullable = false)
+    private LocalDate mesReferencia;
+
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private String tipo; // RECEITA, DESPESA, TRANSFERENCIA, CARTAO
+
+    @Column(name = "carteira_id", nullable = false)
+    private Long carteiraId;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private Long quantidade;
+}
@@ -9,31 +9,42 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "transacoes")
+@NamedEntityGraph(name = Transacao.GRAFO_DETALHES, attributeNodes = {
+        @NamedAttributeNode("carteiraOrigem"),
+        @NamedAttributeNode("carteiraDestino"),
+        @NamedAttributeNode("categoria")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transacao extends BaseEntity {
+
+    // Carteiras e categoria usadas para montar respostas e relatórios
+    public static final String GRAFO_DETALHES = "Transacao.detalhes";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequência com incremento 50 (V4): o optimizer pooled reserva blocos de ids e libera o batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacaoSeq")
+    @SequenceGenerator(name = "transacaoSeq", sequenceName = "transacoes_id_seq", allocationSize = 50)
     private Long id;
     private String descricao;
     private BigDecimal valor;
     private String tipo; 
     private LocalDate data;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "carteira_origem_id", nullable = false)
     private Carteira carteiraOrigem;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "carteira_destino_id", nullable = true)
     private Carteira carteiraDestino;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = true)
     private Categoria categoria;
 }
@@ -16,7 +16,8 @@ import java.time.LocalDate;
 public class TransacaoCartaoCredito extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacaoCartaoCreditoSeq")
+    @SequenceGenerator(name = "transacaoCartaoCreditoSeq", sequenceName = "transacoes_cartao_credito_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -9,12 +9,21 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "transacoes_recorrentes")
+@NamedEntityGraph(name = TransacaoRecorrente.GRAFO_DETALHES, attributeNodes = {
+        @NamedAttributeNode("carteira"),
+        @NamedAttributeNode("categoria")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class TransacaoRecorrente extends BaseEntity {
+
+    // Carteira e categoria usadas para montar respostas e executar a recorrência
+    public static final String GRAFO_DETALHES = "TransacaoRecorrente.detalhes";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacaoRecorrenteSeq")
+    @SequenceGenerator(name = "transacaoRecorrenteSeq", sequenceName = "transacoes_recorrentes_id_seq", allocationSize = 50)
     private Long id;
     
     private String descricao;
@@ -27,15 +36,15 @@ public class TransacaoRecorrente extends BaseEntity {
     private LocalDate proximaExecucao;
     private Boolean ativa;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "carteira_id", nullable = false)
     private Carteira carteira;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = true)
     private Categoria categoria;
 }
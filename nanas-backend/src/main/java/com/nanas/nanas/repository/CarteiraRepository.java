@@ -1,10 +1,15 @@
 package com.nanas.nanas.repository;
 
+import com.nanas.nanas.dto.CarteiraResponse;
 import com.nanas.nanas.model.Carteira;
 import com.nanas.nanas.model.Usuario; // Importe a classe Usuario
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +17,27 @@ public interface CarteiraRepository extends JpaRepository<Carteira, Long> {
 
     List<Carteira> findByUsuario(Usuario usuario);
     List<Carteira> findByUsuarioId(Long usuarioId);
+    List<Carteira> findByUsuarioIdAndIdIn(Long usuarioId, Collection<Long> ids);
+
+    @Query("SELECT new com.nanas.nanas.dto.CarteiraResponse(c.id, c.nome, c.saldo, c.tipo) " +
+           "FROM Carteira c WHERE c.usuario.id = :usuarioId")
+    List<CarteiraResponse> listarRespostasPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT new com.nanas.nanas.dto.CarteiraResponse(c.id, c.nome, c.saldo, c.tipo) FROM Carteira c ORDER BY c.id")
+    List<CarteiraResponse> listarTodasRespostas();
+
+    @Query("SELECT COALESCE(SUM(c.saldo), 0) FROM Carteira c WHERE c.usuario.id = :usuarioId")
+    BigDecimal somarSaldoPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT c.id FROM Carteira c WHERE c.usuario.id = :usuarioId")
+    List<Long> listarIdsPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT COALESCE(SUM(c.saldo), 0) FROM Carteira c WHERE c.id IN :ids")
+    BigDecimal somarSaldo(@Param("ids") Collection<Long> ids);
+
+    // Trava as linhas na ordem do ORDER BY, sempre crescente por id. FOR NO KEY UPDATE
+    // não conflita com a chave estrangeira de lançamentos que apenas creditam na carteira
+    @Query(value = "SELECT c.id FROM carteiras c WHERE c.id IN (:ids) ORDER BY c.id FOR NO KEY UPDATE",
+           nativeQuery = true)
+    List<Long> travarEmOrdem(@Param("ids") Collection<Long> ids);
 }
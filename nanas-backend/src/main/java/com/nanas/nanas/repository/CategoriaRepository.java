@@ -1,13 +1,22 @@
 package com.nanas.nanas.repository;
 
+import com.nanas.nanas.dto.CategoriaResponse;
 import com.nanas.nanas.model.Categoria;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
     List<Categoria> findByUsuarioId(Long usuarioId);
+    List<Categoria> findByUsuarioIdAndIdIn(Long usuarioId, Collection<Long> ids);
+
+    @Query("SELECT new com.nanas.nanas.dto.CategoriaResponse(c.id, c.nome) " +
+           "FROM Categoria c WHERE c.usuario.id = :usuarioId")
+    List<CategoriaResponse> listarRespostasPorUsuario(@Param("usuarioId") Long usuarioId);
 }
 
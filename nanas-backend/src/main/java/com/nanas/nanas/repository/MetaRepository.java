@@ -1,5 +1,6 @@
 package com.nanas.nanas.repository;
 
+import com.nanas.nanas.dto.MetaResponse;
 import com.nanas.nanas.model.Meta;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -11,14 +12,24 @@ import java.util.List;
 
 @Repository
 public interface MetaRepository extends JpaRepository<Meta, Long> {
+
+    String SELECT_RESPOSTA = "SELECT new com.nanas.nanas.dto.MetaResponse(" +
+            "m.id, m.nome, m.valorMeta, m.valorAtual, m.dataInicio, m.dataFim, m.periodo, m.ativa, c.id, c.nome) " +
+            "FROM Meta m LEFT JOIN m.categoria c ";
     
     List<Meta> findByUsuarioIdAndAtivaTrue(Long usuarioId);
     
     List<Meta> findByUsuarioId(Long usuarioId);
     
+    @Query(SELECT_RESPOSTA + "WHERE m.usuario.id = :usuarioId")
+    List<MetaResponse> listarRespostasPorUsuario(@Param("usuarioId") Long usuarioId);
+    
+    @Query(SELECT_RESPOSTA + "WHERE m.usuario.id = :usuarioId AND m.ativa = true")
+    List<MetaResponse> listarRespostasAtivasPorUsuario(@Param("usuarioId") Long usuarioId);
+    
     List<Meta> findByUsuarioIdAndCategoriaId(Long usuarioId, Long categoriaId);
     
-    @Query("SELECT m FROM Meta m WHERE m.usuario.id = :usuarioId " +
+    @Query("SELECT m FROM Meta m LEFT JOIN FETCH m.categoria WHERE m.usuario.id = :usuarioId " +
            "AND m.dataInicio <= :data AND m.dataFim >= :data AND m.ativa = true")
     List<Meta> findMetasAtivasNoPeriodo(@Param("usuarioId") Long usuarioId, @Param("data") LocalDate data);
     
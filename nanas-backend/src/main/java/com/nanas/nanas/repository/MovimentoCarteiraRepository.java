@@ -0,0 +1,102 @@
+package com.nanas.nanas.repository;
+
+import com.nanas.nanas.model.MovimentoCarteira;
+import com.nanas.nanas.repository.projection.TotalPorDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MovimentoCarteiraRepository extends JpaRepository<MovimentoCarteira, Long> {
+
+    // O id vem do DEFAULT da coluna dentro do próprio INSERT (ver travarParaCompactacao);
+    // nenhuma linha inserida significa carteira inexistente
+    @Modifying
+    @Query(value = "INSERT INTO movimentos_carteira (carteira_id, data, valor, descricao) " +
+                   "SELECT c.id, CAST(:data AS date), CAST(:valor AS numeric), CAST(:descricao AS varchar) " +
+                   "FROM carteiras c WHERE c.id = :carteiraId",
+           nativeQuery = true)
+    int registrar(@Param("carteiraId") Long carteiraId,
+                  @Param("data") LocalDate data,
+                  @Param("valor") BigDecimal valor,
+                  @Param("descricao") String descricao);
+
+    // As duas pontas da transferência em um único INSERT
+    @Modifying
+    @Query(value = "INSERT INTO movimentos_carteira (carteira_id, data, valor, descricao) " +
+                   "SELECT c.id, CAST(:data AS date), " +
+                   "       CASE WHEN c.id = :origemId THEN -CAST(:valor AS numeric) ELSE CAST(:valor AS numeric) END, " +
+                   "       CAST(:descricao AS varchar) " +
+                   "FROM carteiras c WHERE c.id IN (:origemId, :destinoId) ORDER BY c.id",
+           nativeQuery = true)
+    int registrarTransferencia(@Param("origemId") Long origemId,
+                               @Param("destinoId") Long destinoId,
+                               @Param("data") LocalDate data,
+                               @Param("valor") BigDecimal valor,
+                               @Param("descricao") String descricao);
+
+    @Query(value = "SELECT saldo_carteira(:carteiraId)", nativeQuery = true)
+    BigDecimal calcularSaldo(@Param("carteiraId") Long carteiraId);
+
+    @Query("SELECT COALESCE(SUM(m.valor), 0) FROM MovimentoCarteira m " +
+           "WHERE m.carteiraId IN :carteiraIds AND m.data >= :data")
+    BigDecimal somarAPartirDe(@Param("carteiraIds") Collection<Long> carteiraIds, @Param("data") LocalDate data);
+
+    @Query("SELECT m.data AS data, SUM(m.valor) AS total FROM MovimentoCarteira m " +
+           "WHERE m.carteiraId IN :carteiraIds AND m.data BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY m.data ORDER BY m.data")
+    List<TotalPorDia> somarPorDia(@Param("carteiraIds") Collection<Long> carteiraIds,
+                                  @Param("dataInicio") LocalDate dataInicio,
+                                  @Param("dataFim") LocalDate dataFim);
+
+    // Carteiras com ao menos :minimoMovimentos após o último checkpoint. Cada contagem
+    // percorre só a cauda no índice (carteira_id, id) e para no mínimo pedido
+    @Query(value = "SELECT c.id FROM carteiras c " +
+                   "LEFT JOIN LATERAL (SELECT k.ultimo_movimento_id FROM checkpoints_carteira k " +
+                   "                   WHERE k.carteira_id = c.id " +
+                   "                   ORDER BY k.ultimo_movimento_id DESC LIMIT 1) k ON true " +
+                   "WHERE (SELECT COUNT(*) FROM (SELECT 1 FROM movimentos_carteira m " +
+                   "                             WHERE m.carteira_id = c.id " +
+                   "                             AND m.id > COALESCE(k.ultimo_movimento_id, 0) " +
+                   "                             LIMIT :minimoMovimentos) cauda) >= :minimoMovimentos " +
+                   "ORDER BY c.id",
+           nativeQuery = true)
+    List<Long> buscarCarteirasParaCompactar(@Param("minimoMovimentos") long minimoMovimentos);
+
+    // FOR UPDATE conflita com a trava de chave estrangeira de cada INSERT no diário:
+    // espera os movimentos em andamento desta carteira e segura os novos até o commit,
+    // então nenhum id menor que o checkpoint confirma depois dele
+    @Query(value = "SELECT c.id FROM carteiras c WHERE c.id = :carteiraId FOR UPDATE", nativeQuery = true)
+    Optional<Long> travarParaCompactacao(@Param("carteiraId") Long carteiraId);
+
+    @Modifying
+    @Query(value = "INSERT INTO checkpoints_carteira (carteira_id, ultimo_movimento_id, saldo) " +
+                   "SELECT :carteiraId, cauda.ultimo_id, COALESCE(k.saldo, 0) + cauda.soma " +
+                   "FROM (SELECT 1) AS base " +
+                   "LEFT JOIN LATERAL (SELECT c.saldo, c.ultimo_movimento_id FROM checkpoints_carteira c " +
+                   "                   WHERE c.carteira_id = :carteiraId " +
+                   "                   ORDER BY c.ultimo_movimento_id DESC LIMIT 1) k ON true " +
+                   "CROSS JOIN LATERAL (SELECT MAX(m.id) AS ultimo_id, SUM(m.valor) AS soma " +
+                   "                    FROM movimentos_carteira m " +
+                   "                    WHERE m.carteira_id = :carteiraId " +
+                   "                    AND m.id > COALESCE(k.ultimo_movimento_id, 0)) cauda " +
+                   "WHERE cauda.ultimo_id IS NOT NULL",
+           nativeQuery = true)
+    int compactar(@Param("carteiraId") Long carteiraId);
+
+    // Mantém apenas o checkpoint mais recente da carteira
+    @Modifying
+    @Query(value = "DELETE FROM checkpoints_carteira c WHERE c.carteira_id = :carteiraId " +
+                   "AND c.ultimo_movimento_id < (SELECT MAX(n.ultimo_movimento_id) FROM checkpoints_carteira n " +
+                   "                             WHERE n.carteira_id = :carteiraId)",
+           nativeQuery = true)
+    int removerCheckpointsAntigos(@Param("carteiraId") Long carteiraId);
+}
@@ -0,0 +1,101 @@
+package com.nanas.nanas.repository;
+
+import com.nanas.nanas.model.ResumoMensal;
+import com.nanas.nanas.repository.projection.TotalPorCategoria;
+import com.nanas.nanas.repository.projection.TotalPorCategoriaMes;
+import com.nanas.nanas.repository.projection.TotalPorTipoMes;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, Long> {
+
+    // A trava compartilhada do usuário (ver travarUsuarioParaReconstrucao) vem no
+    // próprio comando: é obtida antes do upsert, sem um round trip a mais
+    @Modifying
+    @Query(value = "WITH trava AS (SELECT pg_advisory_xact_lock_shared(hashtext('resumo_mensal'), hashint8(:usuarioId))) " +
+                   "INSERT INTO resumo_mensal (usuario_id, mes_referencia, categoria_id, tipo, carteira_id, total, quantidade) " +
+                   "SELECT :usuarioId, :mesReferencia, :categoriaId, :tipo, :carteiraId, :valor, :quantidade FROM trava " +
+                   "ON CONFLICT (usuario_id, mes_referencia, categoria_id, tipo, carteira_id) DO UPDATE " +
+                   "SET total = resumo_mensal.total + EXCLUDED.total, " +
+                   "quantidade = resumo_mensal.quantidade + EXCLUDED.quantidade",
+           nativeQuery = true)
+    void acumular(@Param("usuarioId") Long usuarioId,
+                  @Param("mesReferencia") LocalDate mesReferencia,
+                  @Param("categoriaId") Long categoriaId,
+                  @Param("tipo") String tipo,
+                  @Param("carteiraId") Long carteiraId,
+                  @Param("valor") BigDecimal valor,
+                  @Param("quantidade") Long quantidade);
+
+    // Exclusiva contra a trava compartilhada de acumular, só para o usuário dado:
+    // espera as escritas dele em andamento e segura as novas até o commit.
+    // Leituras e escritas de outros usuários seguem livres
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('resumo_mensal'), hashint8(:usuarioId))", nativeQuery = true)
+    Integer travarUsuarioParaReconstrucao(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query(value = "DELETE FROM resumo_mensal WHERE usuario_id = :usuarioId", nativeQuery = true)
+    void limparUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, mes_referencia, categoria_id, tipo, carteira_id, total, quantidade) " +
+                   "SELECT t.usuario_id, CAST(date_trunc('month', t.data) AS date), COALESCE(t.categoria_id, 0), " +
+                   "t.tipo, t.carteira_origem_id, SUM(t.valor), COUNT(*) " +
+                   "FROM transacoes t WHERE t.usuario_id = :usuarioId GROUP BY 1, 2, 3, 4, 5",
+           nativeQuery = true)
+    void reconstruirDeTransacoes(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query(value = "INSERT INTO resumo_mensal (usuario_id, mes_referencia, categoria_id, tipo, carteira_id, total, quantidade) " +
+                   "SELECT t.usuario_id, CAST(date_trunc('month', t.data_compra) AS date), COALESCE(t.categoria_id, 0), " +
+                   "'CARTAO', 0, SUM(t.valor), COUNT(*) " +
+                   "FROM transacoes_cartao_credito t WHERE t.usuario_id = :usuarioId GROUP BY 1, 2, 3",
+           nativeQuery = true)
+    void reconstruirDeTransacoesCartao(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT r.tipo AS tipo, YEAR(r.mesReferencia) AS ano, MONTH(r.mesReferencia) AS mes, SUM(r.total) AS total " +
+           "FROM ResumoMensal r WHERE r.usuarioId = :usuarioId " +
+           "AND r.mesReferencia BETWEEN :mesInicio AND :mesFim " +
+           "GROUP BY r.tipo, YEAR(r.mesReferencia), MONTH(r.mesReferencia)")
+    List<TotalPorTipoMes> somarPorTipoEMes(@Param("usuarioId") Long usuarioId,
+                                           @Param("mesInicio") LocalDate mesInicio,
+                                           @Param("mesFim") LocalDate mesFim);
+
+    // Null se não houver linhas no intervalo
+    @Query("SELECT SUM(r.total) FROM ResumoMensal r WHERE r.usuarioId = :usuarioId " +
+           "AND r.categoriaId = :categoriaId AND r.tipo = :tipo " +
+           "AND r.mesReferencia BETWEEN :mesInicio AND :mesFim")
+    BigDecimal somarPorCategoriaETipo(@Param("usuarioId") Long usuarioId,
+                                      @Param("categoriaId") Long categoriaId,
+                                      @Param("tipo") String tipo,
+                                      @Param("mesInicio") LocalDate mesInicio,
+                                      @Param("mesFim") LocalDate mesFim);
+
+    @Query("SELECT r.categoriaId AS categoriaId, c.nome AS categoriaNome, SUM(r.total) AS total " +
+           "FROM ResumoMensal r LEFT JOIN Categoria c ON c.id = r.categoriaId " +
+           "WHERE r.usuarioId = :usuarioId AND r.tipo = :tipo AND r.mesReferencia = :mesReferencia " +
+           "GROUP BY r.categoriaId, c.nome HAVING SUM(r.quantidade) > 0")
+    List<TotalPorCategoria> somarPorCategoria(@Param("usuarioId") Long usuarioId,
+                                              @Param("tipo") String tipo,
+                                              @Param("mesReferencia") LocalDate mesReferencia);
+
+    @Query("SELECT r.categoriaId AS categoriaId, c.nome AS categoriaNome, " +
+           "YEAR(r.mesReferencia) AS ano, MONTH(r.mesReferencia) AS mes, SUM(r.total) AS total " +
+           "FROM ResumoMensal r LEFT JOIN Categoria c ON c.id = r.categoriaId " +
+           "WHERE r.usuarioId = :usuarioId AND r.tipo = :tipo " +
+           "AND r.mesReferencia BETWEEN :mesInicio AND :mesFim " +
+           "GROUP BY r.categoriaId, c.nome, YEAR(r.mesReferencia), MONTH(r.mesReferencia) " +
+           "HAVING SUM(r.quantidade) > 0")
+    List<TotalPorCategoriaMes> somarPorCategoriaEMes(@Param("usuarioId") Long usuarioId,
+                                                     @Param("tipo") String tipo,
+                                                     @Param("mesInicio") LocalDate mesInicio,
+                                                     @Param("mesFim") LocalDate mesFim);
+}
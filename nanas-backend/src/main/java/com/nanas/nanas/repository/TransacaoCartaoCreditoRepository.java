@@ -2,20 +2,35 @@ package com.nanas.nanas.repository;
 
 import com.nanas.nanas.model.TransacaoCartaoCredito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransacaoCartaoCreditoRepository extends JpaRepository<TransacaoCartaoCredito, Long> {
 
     List<TransacaoCartaoCredito> findByCartaoCreditoIdAndUsuarioId(Long cartaoCreditoId, Long usuarioId);
 
+    Optional<TransacaoCartaoCredito> findByIdAndCartaoCreditoIdAndUsuarioId(Long id, Long cartaoCreditoId, Long usuarioId);
+
     List<TransacaoCartaoCredito> findAllByCartaoCreditoIdAndUsuarioIdAndDataCompraBetween(
             Long cartaoCreditoId,
             Long usuarioId,
             LocalDate dataInicio,
             LocalDate dataFim
     );
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("SELECT t FROM TransacaoCartaoCredito t WHERE t.usuario.id = :usuarioId ORDER BY t.dataCompra, t.id")
+    Stream<TransacaoCartaoCredito> streamByUsuarioId(@Param("usuarioId") Long usuarioId);
 }
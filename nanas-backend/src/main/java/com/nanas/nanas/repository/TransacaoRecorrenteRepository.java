@@ -1,6 +1,8 @@
 package com.nanas.nanas.repository;
 
+import com.nanas.nanas.dto.TransacaoRecorrenteResponse;
 import com.nanas.nanas.model.TransacaoRecorrente;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,14 +10,29 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransacaoRecorrenteRepository extends JpaRepository<TransacaoRecorrente, Long> {
+
+    String SELECT_RESPOSTA = "SELECT new com.nanas.nanas.dto.TransacaoRecorrenteResponse(" +
+            "tr.id, tr.descricao, tr.valor, tr.tipo, tr.frequencia, tr.diaVencimento, tr.dataInicio, tr.dataFim, " +
+            "tr.proximaExecucao, tr.ativa, ca.id, ca.nome, c.id, c.nome) " +
+            "FROM TransacaoRecorrente tr JOIN tr.carteira ca LEFT JOIN tr.categoria c ";
     
     List<TransacaoRecorrente> findByUsuarioIdAndAtivaTrue(Long usuarioId);
     
     List<TransacaoRecorrente> findByUsuarioId(Long usuarioId);
     
+    @Query(SELECT_RESPOSTA + "WHERE tr.usuario.id = :usuarioId")
+    List<TransacaoRecorrenteResponse> listarRespostasPorUsuario(@Param("usuarioId") Long usuarioId);
+    
+    @Query(SELECT_RESPOSTA + "WHERE tr.usuario.id = :usuarioId AND tr.ativa = true")
+    List<TransacaoRecorrenteResponse> listarRespostasAtivasPorUsuario(@Param("usuarioId") Long usuarioId);
+    
+    @EntityGraph(TransacaoRecorrente.GRAFO_DETALHES)
+    Optional<TransacaoRecorrente> findComDetalhesById(Long id);
+    
     @Query("SELECT tr FROM TransacaoRecorrente tr WHERE tr.ativa = true " +
            "AND tr.proximaExecucao <= :data " +
            "AND (tr.dataFim IS NULL OR tr.dataFim >= :data)")
@@ -1,14 +1,36 @@
 package com.nanas.nanas.repository;
 
+import com.nanas.nanas.dto.TransacaoResponse;
 import com.nanas.nanas.model.Transacao;
 import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.repository.projection.TotalPorTipoMes;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import com.nanas.nanas.model.Carteira;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
+
+    String SELECT_RESPOSTA = "SELECT new com.nanas.nanas.dto.TransacaoResponse(" +
+            "t.id, t.descricao, t.valor, t.tipo, t.data, co.id, co.nome, cd.id, cd.nome, c.id, c.nome) " +
+            "FROM Transacao t JOIN t.carteiraOrigem co LEFT JOIN t.carteiraDestino cd LEFT JOIN t.categoria c ";
+
+    @EntityGraph(Transacao.GRAFO_DETALHES)
+    Optional<Transacao> findComDetalhesById(Long id);
+
+    @EntityGraph(Transacao.GRAFO_DETALHES)
     List<Transacao> findByUsuarioOrderByDataDesc(Usuario usuario);
+
+    @EntityGraph(Transacao.GRAFO_DETALHES)
     List<Transacao> findByUsuarioAndTipoAndDataBetween(Usuario usuario, String tipo, LocalDate dataInicio, LocalDate dataFim);
     List<Transacao> findByUsuarioAndCarteiraOrigemAndDataGreaterThanEqual(Usuario usuario, Carteira carteira, LocalDate data);
     List<Transacao> findByUsuarioAndCarteiraDestinoAndDataGreaterThanEqual(Usuario usuario, Carteira carteira, LocalDate data);
@@ -16,6 +38,49 @@ public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     List<Transacao> findByUsuarioAndCarteiraDestinoAndData(Usuario usuario, Carteira carteira, LocalDate data);
     List<Transacao> findByUsuarioAndDataBetween(Usuario usuario, LocalDate startDate, LocalDate endDate);
     List<Transacao> findByUsuarioAndDataBefore(Usuario usuario, LocalDate date);
-    List<Transacao> findByUsuarioIdAndCategoria_IdAndDataBetween(Long usuarioId, Long categoriaId, LocalDate dataInicio, LocalDate dataFim);
+
+    @EntityGraph(Transacao.GRAFO_DETALHES)
+    List<Transacao> findTop5ByUsuarioAndTipoAndDataBetweenOrderByValorDesc(Usuario usuario, String tipo, LocalDate dataInicio, LocalDate dataFim);
+
+    // Pontas de mês das metas (ver MetaService.atualizarValorAtualMeta); null se não houver transações
+    @Query("SELECT SUM(t.valor) FROM Transacao t WHERE t.usuario.id = :usuarioId AND t.categoria.id = :categoriaId " +
+           "AND t.tipo = :tipo AND t.data BETWEEN :dataInicio AND :dataFim")
+    BigDecimal somarPorCategoriaETipo(@Param("usuarioId") Long usuarioId,
+                                      @Param("categoriaId") Long categoriaId,
+                                      @Param("tipo") String tipo,
+                                      @Param("dataInicio") LocalDate dataInicio,
+                                      @Param("dataFim") LocalDate dataFim);
+
+    @Query(SELECT_RESPOSTA + "WHERE t.usuario.id = :usuarioId ORDER BY t.data DESC, t.id DESC")
+    List<TransacaoResponse> listarRespostasPorUsuario(@Param("usuarioId") Long usuarioId);
+
+    @Query(SELECT_RESPOSTA + "ORDER BY t.data DESC, t.id DESC")
+    List<TransacaoResponse> listarTodasRespostas();
+
+    @Query(SELECT_RESPOSTA + "WHERE t.usuario.id = :usuarioId ORDER BY t.data DESC, t.id DESC")
+    List<TransacaoResponse> buscarPrimeiraPagina(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    @Query(SELECT_RESPOSTA + "WHERE t.usuario.id = :usuarioId " +
+           "AND (t.data < :data OR (t.data = :data AND t.id < :id)) " +
+           "ORDER BY t.data DESC, t.id DESC")
+    List<TransacaoResponse> buscarPaginaApos(@Param("usuarioId") Long usuarioId,
+                                             @Param("data") LocalDate data,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transacao t JOIN FETCH t.carteiraOrigem LEFT JOIN FETCH t.carteiraDestino " +
+           "LEFT JOIN FETCH t.categoria WHERE t.usuario.id = :usuarioId ORDER BY t.data, t.id")
+    Stream<Transacao> streamByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT t.tipo AS tipo, YEAR(t.data) AS ano, MONTH(t.data) AS mes, SUM(t.valor) AS total " +
+           "FROM Transacao t WHERE t.usuario.id = :usuarioId AND t.data BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY t.tipo, YEAR(t.data), MONTH(t.data)")
+    List<TotalPorTipoMes> somarPorTipoEMes(@Param("usuarioId") Long usuarioId,
+                                           @Param("dataInicio") LocalDate dataInicio,
+                                           @Param("dataFim") LocalDate dataFim);
 }
     
\ No newline at end of file
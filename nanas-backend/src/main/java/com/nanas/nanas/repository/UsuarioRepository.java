@@ -2,10 +2,32 @@ package com.nanas.nanas.repository;
 
 import com.nanas.nanas.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
     Optional<Usuario> findByFirebaseUid(String firebaseUid);
-}
 
+    @Query("SELECT u.id FROM Usuario u ORDER BY u.id")
+    List<Long> listarIds();
+
+    // versao_dados e versao_meses_fechados não são mapeadas na entidade: só estes comandos as tocam
+    @Query(value = "SELECT u.versao_dados FROM usuarios u WHERE u.id = :id", nativeQuery = true)
+    Optional<Long> buscarVersaoDados(@Param("id") Long id);
+
+    @Query(value = "SELECT u.versao_meses_fechados FROM usuarios u WHERE u.id = :id", nativeQuery = true)
+    Optional<Long> buscarVersaoMesesFechados(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE usuarios SET versao_dados = versao_dados + 1 WHERE id = :id", nativeQuery = true)
+    int incrementarVersaoDados(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE usuarios SET versao_dados = versao_dados + 1, "
+            + "versao_meses_fechados = versao_meses_fechados + 1 WHERE id = :id", nativeQuery = true)
+    int incrementarVersaoDadosEMesesFechados(@Param("id") Long id);
+}
@@ -0,0 +1,12 @@
+package com.nanas.nanas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção do total de transações agrupado por categoria.
+ */
+public interface TotalPorCategoria {
+    Long getCategoriaId();
+    String getCategoriaNome();
+    BigDecimal getTotal();
+}
@@ -0,0 +1,14 @@
+package com.nanas.nanas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção do total de transações agrupado por categoria e mês.
+ */
+public interface TotalPorCategoriaMes {
+    Long getCategoriaId();
+    String getCategoriaNome();
+    Integer getAno();
+    Integer getMes();
+    BigDecimal getTotal();
+}
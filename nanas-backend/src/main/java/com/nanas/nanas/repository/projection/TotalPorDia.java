@@ -0,0 +1,12 @@
+package com.nanas.nanas.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projeção do total de movimentos agrupado por dia.
+ */
+public interface TotalPorDia {
+    LocalDate getData();
+    BigDecimal getTotal();
+}
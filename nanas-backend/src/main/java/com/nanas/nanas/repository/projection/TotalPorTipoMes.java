@@ -0,0 +1,13 @@
+package com.nanas.nanas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção do total de transações agrupado por tipo e mês.
+ */
+public interface TotalPorTipoMes {
+    String getTipo();
+    Integer getAno();
+    Integer getMes();
+    BigDecimal getTotal();
+}
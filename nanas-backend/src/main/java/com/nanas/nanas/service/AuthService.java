@@ -1,26 +1,44 @@
 package com.nanas.nanas.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
+import com.nanas.nanas.config.UsuarioAutenticado;
 import com.nanas.nanas.model.Usuario;
 import com.nanas.nanas.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @Service
 public class AuthService {
 
     private final UsuarioRepository usuarioRepository;
     private final FirebaseAuth firebaseAuth;
 
+    // firebaseUid -> usuário local; UIDs sem usuário não entram no cache
+    private final Cache<String, UsuarioAutenticado> usuariosPorUid;
+
     @Autowired
-    public AuthService(UsuarioRepository usuarioRepository, FirebaseAuth firebaseAuth) {
+    public AuthService(UsuarioRepository usuarioRepository, FirebaseAuth firebaseAuth,
+                       @Value("${usuarios.cache.tamanho-maximo:10000}") long tamanhoMaximoCache,
+                       @Value("${usuarios.cache.expiracao-minutos:10}") long expiracaoCacheMinutos) {
         this.usuarioRepository = usuarioRepository;
         this.firebaseAuth = firebaseAuth;
+        this.usuariosPorUid = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoCacheMinutos))
+                .build();
     }
 
     @Transactional
@@ -28,7 +46,7 @@ public class AuthService {
         FirebaseToken decodedToken = firebaseAuth.verifyIdToken(idToken);
         String uid = decodedToken.getUid();
 
-        return usuarioRepository.findByFirebaseUid(uid)
+        Usuario usuario = usuarioRepository.findByFirebaseUid(uid)
                 .stream().findFirst()
                 .orElseGet(() -> {
                     Usuario novoUsuario = new Usuario();
@@ -37,12 +55,34 @@ public class AuthService {
                     novoUsuario.setNome(nome);
                     return usuarioRepository.save(novoUsuario);
                 });
+        usuariosPorUid.put(uid, paraAutenticado(usuario));
+        return usuario;
     }
 
-    public Usuario findByFirebaseUid(String firebaseUid) {
-        return usuarioRepository.findByFirebaseUid(firebaseUid)
-                .stream().findFirst()
+    /**
+     * Resolve o usuário local do UID. Usa o principal da requisição quando ele
+     * já traz o usuário (ver FirebaseAuthenticationFilter) e, fora disso, o cache;
+     * só consulta o banco na primeira vez que o UID aparece.
+     */
+    public UsuarioAutenticado resolverUsuario(String firebaseUid) {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao != null && autenticacao.getPrincipal() instanceof UsuarioAutenticado) {
+            UsuarioAutenticado principal = (UsuarioAutenticado) autenticacao.getPrincipal();
+            if (principal.getFirebaseUid().equals(firebaseUid)) {
+                return principal;
+            }
+        }
+        return buscarUsuario(firebaseUid)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Usuário com UID " + firebaseUid + " não encontrado no banco de dados local."));
     }
+
+    public Optional<UsuarioAutenticado> buscarUsuario(String firebaseUid) {
+        return Optional.ofNullable(usuariosPorUid.get(firebaseUid, uid ->
+                usuarioRepository.findByFirebaseUid(uid).map(this::paraAutenticado).orElse(null)));
+    }
+
+    private UsuarioAutenticado paraAutenticado(Usuario usuario) {
+        return new UsuarioAutenticado(usuario.getId(), usuario.getFirebaseUid(), usuario.getNome(), usuario.getEmail());
+    }
 }
@@ -20,14 +20,17 @@ public class CartaoCreditoService {
     private final CartaoCreditoRepository cartaoCreditoRepository;
     private final UsuarioRepository usuarioRepository;
     private final CartaoCreditoMapper cartaoCreditoMapper;
+    private final VersaoDadosService versaoDadosService;
 
     @Autowired
     public CartaoCreditoService(CartaoCreditoRepository cartaoCreditoRepository,
                                 UsuarioRepository usuarioRepository,
-                                CartaoCreditoMapper cartaoCreditoMapper) {
+                                CartaoCreditoMapper cartaoCreditoMapper,
+                                VersaoDadosService versaoDadosService) {
         this.cartaoCreditoRepository = cartaoCreditoRepository;
         this.usuarioRepository = usuarioRepository;
         this.cartaoCreditoMapper = cartaoCreditoMapper;
+        this.versaoDadosService = versaoDadosService;
     }
 
     @Transactional
@@ -39,6 +42,7 @@ public class CartaoCreditoService {
         cartaoCredito.setUsuario(usuario);
 
         CartaoCredito cartaoSalvo = cartaoCreditoRepository.save(cartaoCredito);
+        versaoDadosService.incrementar(usuario.getId());
 
         return cartaoCreditoMapper.toDTO(cartaoSalvo);
     }
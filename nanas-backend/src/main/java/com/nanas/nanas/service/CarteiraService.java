@@ -5,15 +5,24 @@ import com.nanas.nanas.dto.CarteiraResponse;
 import com.nanas.nanas.model.Carteira;
 import com.nanas.nanas.model.Usuario;
 import com.nanas.nanas.repository.CarteiraRepository;
+import com.nanas.nanas.repository.MovimentoCarteiraRepository;
 import com.nanas.nanas.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 public class CarteiraService {
@@ -24,7 +33,26 @@ public class CarteiraService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
-        public CarteiraResponse criarCarteira(Long usuarioId, CarteiraRequest request ) {
+    @Autowired
+    private MovimentoCarteiraRepository movimentoCarteiraRepository;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final int MAXIMO_TENTATIVAS_EDICAO = 3;
+
+    private TransactionTemplate transacaoPorTentativa;
+
+    @PostConstruct
+    void criarTransacaoPorTentativa() {
+        transacaoPorTentativa = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public CarteiraResponse criarCarteira(Long usuarioId, CarteiraRequest request ) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado"));
 
@@ -33,26 +61,33 @@ public class CarteiraService {
         
         carteira.setTipo(request.getTipo()); 
 
-        carteira.setSaldo(request.getSaldo() != null ? request.getSaldo() : BigDecimal.ZERO);
-        
         carteira.setUsuario(usuario);
 
         carteira = carteiraRepository.save(carteira);
-        
-    
-        return new CarteiraResponse(carteira); 
+
+        // O saldo inicial entra no diário como primeiro movimento
+        BigDecimal saldoInicial = request.getSaldo() != null ? request.getSaldo() : BigDecimal.ZERO;
+        if (saldoInicial.signum() != 0) {
+            movimentoCarteiraRepository.registrar(carteira.getId(), LocalDate.now(), saldoInicial, "Saldo inicial");
+        }
+        versaoDadosService.incrementar(usuarioId);
+
+        // saldo é uma @Formula: só é lido do banco, então a resposta usa o valor gravado no diário
+        CarteiraResponse response = new CarteiraResponse(carteira);
+        response.setSaldo(saldoInicial);
+        return response;
     }
 
     public List<CarteiraResponse> buscarCarteirasPorUsuario(Long usuarioId) {
-        List<Carteira> carteiras = carteiraRepository.findByUsuarioId(usuarioId);
-        return carteiras.stream().map(CarteiraResponse::new).collect(Collectors.toList());
+        return carteiraRepository.listarRespostasPorUsuario(usuarioId);
     }
 
+    @Transactional(readOnly = true)
     public List<CarteiraResponse> buscarTodasCarteiras() {
-        List<Carteira> carteiras = carteiraRepository.findAll();
-        return carteiras.stream().map(this::toCarteiraResponse).collect(Collectors.toList());
+        return carteiraRepository.listarTodasRespostas();
     }
 
+    @Transactional(readOnly = true)
     public CarteiraResponse buscarCarteiraPorId(Long usuarioId, Long carteiraId) {
         Carteira carteira = carteiraRepository.findById(carteiraId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada"));
@@ -62,7 +97,26 @@ public class CarteiraService {
         return toCarteiraResponse(carteira);
     }
 
+    /**
+     * Saldos vão para o diário e não mudam a versão da carteira: o @Version só
+     * protege a edição do nome contra outra edição concorrente. Cada tentativa
+     * roda numa transação própria, com o save e a versão do usuário juntos.
+     */
     public CarteiraResponse atualizarCarteira(Long usuarioId, Long carteiraId, CarteiraRequest request) {
+        // Conflito de versão (outra edição no meio desta): relê e reaplica
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transacaoPorTentativa.execute(status -> aplicarAtualizacaoCarteira(usuarioId, carteiraId, request));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (tentativa >= MAXIMO_TENTATIVAS_EDICAO) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "A carteira foi alterada por outra operação, tente novamente");
+                }
+            }
+        }
+    }
+
+    private CarteiraResponse aplicarAtualizacaoCarteira(Long usuarioId, Long carteiraId, CarteiraRequest request) {
         Carteira carteira = carteiraRepository.findById(carteiraId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada"));
         if (!carteira.getUsuario().getId().equals(usuarioId)) {
@@ -72,9 +126,11 @@ public class CarteiraService {
         carteira.setNome(request.getNome());
 
         carteira = carteiraRepository.save(carteira);
+        versaoDadosService.incrementar(usuarioId);
         return toCarteiraResponse(carteira);
     }
 
+    @Transactional
     public void deletarCarteira(Long usuarioId, Long carteiraId) {
         Carteira carteira = carteiraRepository.findById(carteiraId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada"));
@@ -82,23 +138,87 @@ public class CarteiraService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a esta carteira");
         }
         carteiraRepository.delete(carteira);
+        versaoDadosService.incrementar(usuarioId);
     }
 
-    public void atualizarSaldoCarteira(Long carteiraId, BigDecimal valor, boolean isCredito) {
-        Carteira carteira = carteiraRepository.findById(carteiraId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada"));
-        if (isCredito) {
-            carteira.setSaldo(carteira.getSaldo().add(valor));
-        } else {
-            carteira.setSaldo(carteira.getSaldo().subtract(valor));
+    /**
+     * Registra um crédito ou débito no diário da carteira. É só um INSERT:
+     * escritas concorrentes não disputam a linha da carteira.
+     */
+    @Transactional
+    public void atualizarSaldoCarteira(Long carteiraId, BigDecimal valor, boolean isCredito, LocalDate data, String descricao) {
+        BigDecimal delta = isCredito ? valor : valor.negate();
+        if (movimentoCarteiraRepository.registrar(carteiraId, data, delta, descricao) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada");
+        }
+    }
+
+    /**
+     * Débito que só acontece se houver saldo. Trava a linha da carteira para
+     * que dois débitos simultâneos não validem o mesmo saldo; créditos não travam.
+     */
+    @Transactional
+    public void debitarSaldoCarteira(Long carteiraId, BigDecimal valor, LocalDate data, String descricao) {
+        garantirSaldo(carteiraId, valor);
+        movimentoCarteiraRepository.registrar(carteiraId, data, valor.negate(), descricao);
+    }
+
+    /**
+     * Trava a carteira até o fim da transação e confirma que o saldo cobre o valor.
+     */
+    @Transactional
+    public void garantirSaldo(Long carteiraId, BigDecimal valor) {
+        garantirSaldos(Collections.singletonMap(carteiraId, valor));
+    }
+
+    /**
+     * Trava todas as carteiras de uma vez, em ordem crescente de id, e confirma
+     * o saldo de cada uma. Quem trava mais de uma carteira passa por aqui ou por
+     * transferirEntreCarteiras, ambos em ordem de id. As escritas travam as
+     * carteiras antes das linhas de resumo_mensal (em ordem de chave) e da
+     * versão do usuário; TransferenciasConcorrentesTest exercita essa ordem.
+     */
+    @Transactional
+    public void garantirSaldos(Map<Long, BigDecimal> valores) {
+        travarCarteiras(valores.keySet());
+        valores.forEach((carteiraId, valor) ->
+                verificarSaldo(carteiraId, valor, "Saldo insuficiente na carteira de origem"));
+    }
+
+    private void travarCarteiras(Collection<Long> carteiraIds) {
+        if (carteiraRepository.travarEmOrdem(carteiraIds).size() != carteiraIds.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada");
         }
-        carteiraRepository.save(carteira);
     }
 
+    private void verificarSaldo(Long carteiraId, BigDecimal valor, String mensagem) {
+        // Consulta separada da trava: em READ COMMITTED enxerga os débitos já confirmados
+        BigDecimal saldo = movimentoCarteiraRepository.calcularSaldo(carteiraId);
+        if (saldo.compareTo(valor) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, mensagem);
+        }
+    }
+
+    @Transactional
     public void transferirEntreCarteiras(Long usuarioId, Long carteiraOrigemId, Long carteiraDestinoId, BigDecimal valor, String descricao) {
+        transferirEntreCarteiras(usuarioId, carteiraOrigemId, carteiraDestinoId, valor, descricao, LocalDate.now());
+        versaoDadosService.incrementar(usuarioId);
+    }
+
+    /**
+     * Trava origem e destino em ordem de id, valida o saldo da origem sob a trava
+     * e grava as duas pontas em um único comando. Não incrementa a versão do
+     * usuário: quem chama o faz ao fim da sua transação, depois do resumo mensal.
+     */
+    @Transactional
+    public void transferirEntreCarteiras(Long usuarioId, Long carteiraOrigemId, Long carteiraDestinoId, BigDecimal valor,
+                                         String descricao, LocalDate data) {
         if (valor.compareTo(BigDecimal.ZERO) <= 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O valor da transferência deve ser positivo");
         }
+        if (carteiraOrigemId.equals(carteiraDestinoId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A carteira de destino deve ser diferente da origem");
+        }
 
         Carteira carteiraOrigem = carteiraRepository.findById(carteiraOrigemId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira de origem não encontrada"));
@@ -109,16 +229,9 @@ public class CarteiraService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a uma das carteiras");
         }
 
-        if (carteiraOrigem.getSaldo().compareTo(valor) < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saldo insuficiente na carteira de origem");
-        }
-
-        carteiraOrigem.setSaldo(carteiraOrigem.getSaldo().subtract(valor));
-        carteiraDestino.setSaldo(carteiraDestino.getSaldo().add(valor));
-
-        carteiraRepository.save(carteiraOrigem);
-        carteiraRepository.save(carteiraDestino);
-
+        travarCarteiras(List.of(carteiraOrigem.getId(), carteiraDestino.getId()));
+        verificarSaldo(carteiraOrigem.getId(), valor, "Saldo insuficiente na carteira de origem para transferência");
+        movimentoCarteiraRepository.registrarTransferencia(carteiraOrigem.getId(), carteiraDestino.getId(), data, valor, descricao);
     }
 
     private CarteiraResponse toCarteiraResponse(Carteira carteira) {
@@ -9,6 +9,7 @@ import com.nanas.nanas.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -23,6 +24,10 @@ public class CategoriaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Transactional
     public CategoriaResponse criarCategoria(Long usuarioId, CategoriaRequest request) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado"));
@@ -32,19 +37,22 @@ public class CategoriaService {
         categoria.setUsuario(usuario);
 
         categoria = categoriaRepository.save(categoria);
+        // Categoria nova não aparece em nenhum mês encerrado
+        versaoDadosService.incrementar(usuarioId);
         return toCategoriaResponse(categoria);
     }
 
     public List<CategoriaResponse> buscarCategoriasPorUsuario(Long usuarioId) {
-        List<Categoria> categorias = categoriaRepository.findByUsuarioId(usuarioId);
-        return categorias.stream().map(this::toCategoriaResponse).collect(Collectors.toList());
+        return categoriaRepository.listarRespostasPorUsuario(usuarioId);
     }
 
+    @Transactional(readOnly = true)
     public List<CategoriaResponse> buscarTodasCategorias() {
         List<Categoria> categorias = categoriaRepository.findAll();
         return categorias.stream().map(this::toCategoriaResponse).collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public CategoriaResponse buscarCategoriaPorId(Long usuarioId, Long categoriaId) {
         Categoria categoria = categoriaRepository.findById(categoriaId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Categoria não encontrada"));
@@ -54,6 +62,7 @@ public class CategoriaService {
         return toCategoriaResponse(categoria);
     }
 
+    @Transactional
     public CategoriaResponse atualizarCategoria(Long usuarioId, Long categoriaId, CategoriaRequest request) {
         Categoria categoria = categoriaRepository.findById(categoriaId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Categoria não encontrada"));
@@ -64,9 +73,12 @@ public class CategoriaService {
         categoria.setNome(request.getNome());
 
         categoria = categoriaRepository.save(categoria);
+        // O nome aparece no relatório de meses encerrados
+        versaoDadosService.incrementarComMesesFechados(usuarioId);
         return toCategoriaResponse(categoria);
     }
 
+    @Transactional
     public void deletarCategoria(Long usuarioId, Long categoriaId) {
         Categoria categoria = categoriaRepository.findById(categoriaId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Categoria não encontrada"));
@@ -74,6 +86,7 @@ public class CategoriaService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a esta categoria");
         }
         categoriaRepository.delete(categoria);
+        versaoDadosService.incrementarComMesesFechados(usuarioId);
     }
 
     private CategoriaResponse toCategoriaResponse(Categoria categoria) {
@@ -0,0 +1,59 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.repository.MovimentoCarteiraRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Compactação periódica do diário de carteiras: grava um checkpoint por
+ * carteira com movimentos suficientes desde o anterior, para que o saldo
+ * atual some apenas uma cauda curta de movimentos. Cada carteira é
+ * compactada na sua própria transação, travando só a linha dela.
+ */
+@Service
+public class CompactacaoSaldoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactacaoSaldoService.class);
+
+    private final MovimentoCarteiraRepository movimentoCarteiraRepository;
+    private final TransactionTemplate transacaoPorCarteira;
+
+    @Value("${saldo.compactacao.minimo-movimentos:50}")
+    private long minimoMovimentos;
+
+    public CompactacaoSaldoService(MovimentoCarteiraRepository movimentoCarteiraRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.movimentoCarteiraRepository = movimentoCarteiraRepository;
+        this.transacaoPorCarteira = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${saldo.compactacao.cron:0 30 3 * * *}")
+    public void compactar() {
+        List<Long> carteiraIds = movimentoCarteiraRepository.buscarCarteirasParaCompactar(minimoMovimentos);
+        int checkpoints = 0;
+        int removidos = 0;
+        for (Long carteiraId : carteiraIds) {
+            int[] resultado = transacaoPorCarteira.execute(status -> compactarCarteira(carteiraId));
+            checkpoints += resultado[0];
+            removidos += resultado[1];
+        }
+        logger.info("Compactação de saldos: {} checkpoints criados, {} antigos removidos", checkpoints, removidos);
+    }
+
+    private int[] compactarCarteira(Long carteiraId) {
+        if (movimentoCarteiraRepository.travarParaCompactacao(carteiraId).isEmpty()) {
+            // Removida depois da busca
+            return new int[] {0, 0};
+        }
+        int checkpoints = movimentoCarteiraRepository.compactar(carteiraId);
+        int removidos = movimentoCarteiraRepository.removerCheckpointsAntigos(carteiraId);
+        return new int[] {checkpoints, removidos};
+    }
+}
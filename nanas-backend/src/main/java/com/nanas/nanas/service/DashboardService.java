@@ -1,5 +1,6 @@
 package com.nanas.nanas.service;
 
+import com.nanas.nanas.config.CargaAnalitica;
 import com.nanas.nanas.dto.DespesaPorCategoriaDTO;
 import com.nanas.nanas.dto.EvolucaoSaldoDTO;
 import com.nanas.nanas.dto.TransacaoCartaoCreditoDTO;
@@ -10,15 +11,23 @@ import com.nanas.nanas.model.Usuario;
 import com.nanas.nanas.repository.CartaoCreditoRepository;
 import com.nanas.nanas.service.TransacaoCartaoCreditoService;
 import com.nanas.nanas.repository.CarteiraRepository;
+import com.nanas.nanas.repository.MovimentoCarteiraRepository;
+import com.nanas.nanas.repository.ResumoMensalRepository;
 import com.nanas.nanas.repository.TransacaoRepository;
 import com.nanas.nanas.repository.UsuarioRepository;
+import com.nanas.nanas.repository.projection.TotalPorDia;
+import com.nanas.nanas.repository.projection.TotalPorTipoMes;
+import com.nanas.nanas.service.agregacao.SomaCentavos;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,6 +35,7 @@ import java.util.stream.Stream;
 import java.time.format.DateTimeFormatter; 
 
 @Service
+@CargaAnalitica
 public class DashboardService {
 
     @Autowired
@@ -40,9 +50,16 @@ public class DashboardService {
     @Autowired
     private CartaoCreditoRepository cartaoCreditoRepository;
 
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private MovimentoCarteiraRepository movimentoCarteiraRepository;
+
     @Autowired
     private TransacaoCartaoCreditoService transacaoCartaoCreditoService;
 
+    @Transactional(readOnly = true)
     public List<DespesaPorCategoriaDTO> getDespesasPorCategoria(Long usuarioId, LocalDate startDate, LocalDate endDate) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -53,7 +70,7 @@ public class DashboardService {
                 .filter(t -> t.getCategoria() != null)
                 .collect(Collectors.groupingBy(
                         t -> t.getCategoria().getNome(),
-                        Collectors.reducing(BigDecimal.ZERO, Transacao::getValor, BigDecimal::add)
+                        Collectors.mapping(Transacao::getValor, SomaCentavos.somando())
                 ));
 
 return despesasPorCategoria.entrySet().stream()
@@ -62,44 +79,43 @@ return despesasPorCategoria.entrySet().stream()
         .collect(Collectors.toList());
     }
 
+@Transactional(readOnly = true)
 public Map<String, Object> getSummary(Long usuarioId) {
-    Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+    if (!usuarioRepository.existsById(usuarioId)) {
+        throw new RuntimeException("Usuário não encontrado");
+    }
 
-    List<Carteira> carteiras = carteiraRepository.findByUsuario(usuario);
-    BigDecimal saldoTotal = carteiras.stream()
-            .map(Carteira::getSaldo)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    BigDecimal saldoTotal = carteiraRepository.somarSaldoPorUsuario(usuarioId);
 
     LocalDate hoje = LocalDate.now();
-    LocalDate inicioMesAtual = hoje.withDayOfMonth(1);
-    LocalDate fimMesAtual = hoje.withDayOfMonth(hoje.lengthOfMonth());
-    
-    LocalDate inicioMesAnterior = hoje.minusMonths(1).withDayOfMonth(1);
-    LocalDate fimMesAnterior = inicioMesAnterior.withDayOfMonth(inicioMesAnterior.lengthOfMonth());
-
-    List<Transacao> transacoesMesAtual = transacaoRepository.findByUsuarioAndDataBetween(usuario, inicioMesAtual, fimMesAtual);
-    List<Transacao> transacoesMesAnterior = transacaoRepository.findByUsuarioAndDataBetween(usuario, inicioMesAnterior, fimMesAnterior);
-
-    BigDecimal receitas = transacoesMesAtual.stream()
-            .filter(t -> "RECEITA".equals(t.getTipo()))
-            .map(Transacao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-    BigDecimal despesas = transacoesMesAtual.stream()
-            .filter(t -> "DESPESA".equals(t.getTipo()))
-            .map(Transacao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-    BigDecimal receitasMesAnterior = transacoesMesAnterior.stream()
-            .filter(t -> "RECEITA".equals(t.getTipo()))
-            .map(Transacao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-    BigDecimal despesasMesAnterior = transacoesMesAnterior.stream()
-            .filter(t -> "DESPESA".equals(t.getTipo()))
-            .map(Transacao::getValor)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    YearMonth mesAtual = YearMonth.from(hoje);
+    YearMonth mesAnterior = mesAtual.minusMonths(1);
+
+    // Uma única consulta ao resumo mensal cobre o mês atual e o anterior
+    List<TotalPorTipoMes> totais = resumoMensalRepository.somarPorTipoEMes(
+            usuarioId, mesAnterior.atDay(1), mesAtual.atDay(1));
+
+    BigDecimal receitas = BigDecimal.ZERO;
+    BigDecimal despesas = BigDecimal.ZERO;
+    BigDecimal receitasMesAnterior = BigDecimal.ZERO;
+    BigDecimal despesasMesAnterior = BigDecimal.ZERO;
+
+    for (TotalPorTipoMes total : totais) {
+        boolean isMesAtual = mesAtual.equals(YearMonth.of(total.getAno(), total.getMes()));
+        if ("RECEITA".equals(total.getTipo())) {
+            if (isMesAtual) {
+                receitas = total.getTotal();
+            } else {
+                receitasMesAnterior = total.getTotal();
+            }
+        } else if ("DESPESA".equals(total.getTipo())) {
+            if (isMesAtual) {
+                despesas = total.getTotal();
+            } else {
+                despesasMesAnterior = total.getTotal();
+            }
+        }
+    }
             
 
         BigDecimal faturaCartao = BigDecimal.ZERO;  
@@ -111,7 +127,7 @@ public Map<String, Object> getSummary(Long usuarioId) {
         
         faturaCartao = transacoesFatura.stream()
                 .map(TransacaoCartaoCreditoDTO::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(SomaCentavos.somando());
         }
 
         return Map.of(
@@ -123,41 +139,38 @@ public Map<String, Object> getSummary(Long usuarioId) {
                 "cartoes", faturaCartao
         );
 }
+
+/**
+ * Saldo diário das carteiras do usuário (ou de uma carteira) no período.
+ * O saldo da véspera do início vem do saldo atual menos os movimentos do
+ * diário a partir dessa data; os dias seguintes somam os movimentos por dia.
+ */
+@Transactional(readOnly = true)
 public List<EvolucaoSaldoDTO> getEvolucaoSaldo(Long usuarioId, LocalDate startDate, LocalDate endDate, Long carteiraId) {
-    Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
-
-    List<Transacao> transacoesAnteriores = transacaoRepository.findByUsuarioAndDataBefore(usuario, startDate);
-    
-    BigDecimal saldoInicial = BigDecimal.ZERO;
-    for (Transacao t : transacoesAnteriores) {
-        if ("RECEITA".equals(t.getTipo())) {
-            saldoInicial = saldoInicial.add(t.getValor());
-        } else if ("DESPESA".equals(t.getTipo())) {
-            saldoInicial = saldoInicial.subtract(t.getValor());
-        }
+    if (!usuarioRepository.existsById(usuarioId)) {
+        throw new RuntimeException("Usuário não encontrado");
     }
 
-    List<Transacao> transacoesDoPeriodo = transacaoRepository.findByUsuarioAndDataBetween(usuario, startDate, endDate);
-    Map<LocalDate, List<Transacao>> transacoesAgrupadasPorDia = transacoesDoPeriodo.stream()
-            .collect(Collectors.groupingBy(Transacao::getData));
+    List<Long> carteiraIds = carteiraRepository.listarIdsPorUsuario(usuarioId).stream()
+            .filter(id -> carteiraId == null || id.equals(carteiraId))
+            .collect(Collectors.toList());
+
+    BigDecimal saldoCorrente = BigDecimal.ZERO;
+    Map<LocalDate, BigDecimal> movimentosPorDia = new HashMap<>();
+    if (!carteiraIds.isEmpty()) {
+        saldoCorrente = carteiraRepository.somarSaldo(carteiraIds)
+                .subtract(movimentoCarteiraRepository.somarAPartirDe(carteiraIds, startDate));
+        for (TotalPorDia total : movimentoCarteiraRepository.somarPorDia(carteiraIds, startDate, endDate)) {
+            movimentosPorDia.put(total.getData(), total.getTotal());
+        }
+    }
 
     List<EvolucaoSaldoDTO> evolucao = new ArrayList<>();
     LocalDate dataCorrente = startDate;
-    BigDecimal saldoCorrente = saldoInicial;
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM"); 
 
     while (!dataCorrente.isAfter(endDate)) {
-        List<Transacao> transacoesDoDia = transacoesAgrupadasPorDia.getOrDefault(dataCorrente, new ArrayList<>());
-        
-        for (Transacao t : transacoesDoDia) {
-            if ("RECEITA".equals(t.getTipo())) {
-                saldoCorrente = saldoCorrente.add(t.getValor());
-            } else if ("DESPESA".equals(t.getTipo())) {
-                saldoCorrente = saldoCorrente.subtract(t.getValor());
-            }
-        }
-        
+        saldoCorrente = saldoCorrente.add(movimentosPorDia.getOrDefault(dataCorrente, BigDecimal.ZERO));
         evolucao.add(new EvolucaoSaldoDTO(dataCorrente.format(formatter), saldoCorrente));
         dataCorrente = dataCorrente.plusDays(1);
     }
@@ -0,0 +1,182 @@
+package com.nanas.nanas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nanas.nanas.config.CargaAnalitica;
+import com.nanas.nanas.dto.TransacaoCartaoCreditoDTO;
+import com.nanas.nanas.dto.TransacaoResponse;
+import com.nanas.nanas.mapper.TransacaoCartaoCreditoMapper;
+import com.nanas.nanas.model.Transacao;
+import com.nanas.nanas.model.TransacaoCartaoCredito;
+import com.nanas.nanas.repository.TransacaoCartaoCreditoRepository;
+import com.nanas.nanas.repository.TransacaoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do histórico completo do usuário em NDJSON ou CSV.
+ * As linhas são lidas por cursor e escritas direto na resposta,
+ * desanexando cada entidade para manter a memória constante.
+ */
+@Service
+@CargaAnalitica
+@RequiredArgsConstructor
+public class ExportacaoService {
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        public static Formato de(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return Formato.valueOf(valor.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de exportação inválido: " + valor);
+            }
+        }
+    }
+
+    private final TransacaoRepository transacaoRepository;
+    private final TransacaoCartaoCreditoRepository transacaoCartaoCreditoRepository;
+    private final TransacaoCartaoCreditoMapper transacaoCartaoCreditoMapper;
+    private final TransacaoService transacaoService;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportarTransacoes(Long usuarioId, Formato formato, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            writer.write("id,data,tipo,descricao,valor,carteiraOrigem,carteiraDestino,categoria\n");
+        }
+
+        try (Stream<Transacao> transacoes = transacaoRepository.streamByUsuarioId(usuarioId)) {
+            Iterator<Transacao> iterator = transacoes.iterator();
+            while (iterator.hasNext()) {
+                Transacao transacao = iterator.next();
+                TransacaoResponse linha = transacaoService.toTransacaoResponse(transacao);
+                entityManager.detach(transacao);
+
+                if (formato == Formato.CSV) {
+                    escreverCsv(writer,
+                            linha.getId(),
+                            linha.getData(),
+                            linha.getTipo(),
+                            linha.getDescricao(),
+                            linha.getValor(),
+                            linha.getCarteiraOrigemNome(),
+                            linha.getCarteiraDestinoNome(),
+                            linha.getCategoriaNome());
+                } else {
+                    escreverNdjson(writer, linha);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarTransacoesCartao(Long usuarioId, Formato formato, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            writer.write("id,dataCompra,descricao,valor,cartaoCreditoId,categoriaId\n");
+        }
+
+        try (Stream<TransacaoCartaoCredito> transacoes = transacaoCartaoCreditoRepository.streamByUsuarioId(usuarioId)) {
+            Iterator<TransacaoCartaoCredito> iterator = transacoes.iterator();
+            while (iterator.hasNext()) {
+                TransacaoCartaoCredito transacao = iterator.next();
+                TransacaoCartaoCreditoDTO linha = transacaoCartaoCreditoMapper.toDTO(transacao);
+                entityManager.detach(transacao);
+
+                if (formato == Formato.CSV) {
+                    escreverCsv(writer,
+                            linha.getId(),
+                            linha.getDataCompra(),
+                            linha.getDescricao(),
+                            linha.getValor(),
+                            linha.getCartaoCreditoId(),
+                            linha.getCategoriaId());
+                } else {
+                    escreverNdjson(writer, linha);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private void escreverNdjson(Writer writer, Object linha) throws IOException {
+        writer.write(objectMapper.writeValueAsString(linha));
+        writer.write('\n');
+    }
+
+    private void escreverCsv(Writer writer, Object... colunas) throws IOException {
+        for (int i = 0; i < colunas.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(formatarCampoCsv(colunas[i]));
+        }
+        writer.write('\n');
+    }
+
+    private String formatarCampoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor instanceof BigDecimal ? ((BigDecimal) valor).toPlainString() : valor.toString();
+        if (!(valor instanceof Number) && iniciaFormula(texto)) {
+            // Descrições e nomes vêm do usuário ou do extrato importado; o apóstrofo
+            // impede que a planilha interprete a célula como fórmula
+            return "\"'" + texto.replace("\"", "\"\"") + "\"";
+        }
+        if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+
+    private boolean iniciaFormula(String texto) {
+        if (texto.isEmpty()) {
+            return false;
+        }
+        char primeiro = texto.charAt(0);
+        return primeiro == '=' || primeiro == '+' || primeiro == '-' || primeiro == '@'
+                || primeiro == '\t' || primeiro == '\r';
+    }
+}
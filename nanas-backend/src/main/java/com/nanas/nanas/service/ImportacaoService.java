@@ -0,0 +1,194 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.dto.ImportacaoResponse;
+import com.nanas.nanas.event.TransacoesAlteradasEvent;
+import com.nanas.nanas.model.Carteira;
+import com.nanas.nanas.model.Categoria;
+import com.nanas.nanas.model.Transacao;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.repository.CarteiraRepository;
+import com.nanas.nanas.repository.CategoriaRepository;
+import com.nanas.nanas.repository.TransacaoRepository;
+import com.nanas.nanas.repository.UsuarioRepository;
+import com.nanas.nanas.service.importacao.ConversaoExtrato;
+import com.nanas.nanas.service.importacao.LeitorCsv;
+import com.nanas.nanas.service.importacao.LeitorExtrato;
+import com.nanas.nanas.service.importacao.LeitorOfx;
+import com.nanas.nanas.service.importacao.LinhaExtrato;
+import com.nanas.nanas.service.importacao.LinhaExtratoInvalidaException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Importação de extratos bancários (CSV ou OFX) para uma carteira.
+ * O arquivo é lido em streaming e as transações são gravadas em lotes;
+ * o diário da carteira recebe um movimento por data e o resumo mensal
+ * um delta por chave.
+ * O extrato reflete movimentações já ocorridas, por isso não há
+ * verificação de saldo suficiente por lançamento.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacaoService {
+
+    public enum Formato {
+        CSV, OFX;
+
+        public static Formato de(String valor, String nomeArquivo) {
+            if (valor != null && !valor.isBlank()) {
+                try {
+                    return Formato.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de importação inválido: " + valor);
+                }
+            }
+            if (nomeArquivo != null && nomeArquivo.toLowerCase(Locale.ROOT).endsWith(".ofx")) {
+                return OFX;
+            }
+            return CSV;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacaoService.class);
+
+    // Múltiplo de hibernate.jdbc.batch_size; o contexto de persistência é limpo a cada lote
+    private static final int TAMANHO_LOTE = 500;
+    private static final int MAXIMO_ERROS_REPORTADOS = 20;
+
+    private final UsuarioRepository usuarioRepository;
+    private final CarteiraRepository carteiraRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final CarteiraService carteiraService;
+    private final ResumoMensalService resumoMensalService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
+    public ImportacaoResponse importarExtrato(Long usuarioId, Long carteiraId, Formato formato,
+                                              Charset charset, InputStream entrada) throws IOException {
+        Carteira carteira = carteiraRepository.findById(carteiraId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira não encontrada"));
+        if (!carteira.getUsuario().getId().equals(usuarioId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a esta carteira");
+        }
+        Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+
+        // Categorias resolvidas uma vez por arquivo, pelo nome
+        Map<String, Categoria> categorias = new HashMap<>();
+        for (Categoria categoria : categoriaRepository.findByUsuarioId(usuarioId)) {
+            categorias.putIfAbsent(ConversaoExtrato.normalizar(categoria.getNome()), categoria);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, charset));
+        LeitorExtrato leitor = formato == Formato.OFX ? new LeitorOfx(reader) : new LeitorCsv(reader);
+
+        List<Transacao> lote = new ArrayList<>(TAMANHO_LOTE);
+        ResumoMensalService.Lote resumo = new ResumoMensalService.Lote();
+        List<String> erros = new ArrayList<>();
+        BigDecimal totalReceitas = BigDecimal.ZERO;
+        BigDecimal totalDespesas = BigDecimal.ZERO;
+        Map<LocalDate, BigDecimal> deltasPorData = new TreeMap<>();
+        int importadas = 0;
+        int ignoradas = 0;
+
+        while (true) {
+            LinhaExtrato linha;
+            try {
+                linha = leitor.proxima();
+            } catch (LinhaExtratoInvalidaException e) {
+                ignoradas++;
+                if (erros.size() < MAXIMO_ERROS_REPORTADOS) {
+                    erros.add(e.getMessage());
+                }
+                continue;
+            }
+            if (linha == null) {
+                break;
+            }
+            if (linha.getValor().signum() == 0) {
+                ignoradas++;
+                continue;
+            }
+
+            Transacao transacao = new Transacao();
+            transacao.setDescricao(linha.getDescricao());
+            transacao.setValor(linha.getValor().abs());
+            transacao.setData(linha.getData());
+            transacao.setUsuario(usuario);
+            transacao.setCarteiraOrigem(carteira);
+            if (linha.getCategoria() != null && !linha.getCategoria().isBlank()) {
+                transacao.setCategoria(categorias.get(ConversaoExtrato.normalizar(linha.getCategoria())));
+            }
+            if (linha.getValor().signum() > 0) {
+                transacao.setTipo("RECEITA");
+                totalReceitas = totalReceitas.add(transacao.getValor());
+            } else {
+                transacao.setTipo("DESPESA");
+                totalDespesas = totalDespesas.add(transacao.getValor());
+            }
+
+            lote.add(transacao);
+            resumo.adicionar(transacao);
+            deltasPorData.merge(linha.getData(), linha.getValor(), BigDecimal::add);
+            importadas++;
+            if (lote.size() == TAMANHO_LOTE) {
+                gravarLote(lote);
+            }
+        }
+        gravarLote(lote);
+
+        // Um movimento no diário da carteira por data do extrato
+        deltasPorData.forEach((data, delta) -> {
+            if (delta.signum() != 0) {
+                carteiraService.atualizarSaldoCarteira(carteiraId, delta.abs(), delta.signum() > 0, data, "Importação de extrato");
+            }
+        });
+        resumoMensalService.registrar(resumo);
+        eventPublisher.publishEvent(new TransacoesAlteradasEvent(usuarioId, deltasPorData.keySet()));
+
+        logger.info("Extrato importado na carteira {}: {} transações, {} linhas ignoradas",
+                carteiraId, importadas, ignoradas);
+
+        BigDecimal saldoCarteira = carteiraRepository.findById(carteiraId)
+                .map(Carteira::getSaldo)
+                .orElse(null);
+        return new ImportacaoResponse(importadas, ignoradas, totalReceitas, totalDespesas, saldoCarteira, erros);
+    }
+
+    private void gravarLote(List<Transacao> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        transacaoRepository.saveAll(lote);
+        // Envia o batch e libera as entidades já gravadas; carteira, usuário e
+        // categorias ficam desanexados, mas continuam válidos como referência
+        entityManager.flush();
+        entityManager.clear();
+        lote.clear();
+    }
+}
@@ -1,81 +1,156 @@
 package com.nanas.nanas.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nanas.nanas.config.CargaAnalitica;
 import com.nanas.nanas.dto.InsightDTO;
-import com.nanas.nanas.exception.ResourceNotFoundException;
-import com.nanas.nanas.model.Categoria;
-import com.nanas.nanas.model.Transacao;
-import com.nanas.nanas.model.Usuario;
-import com.nanas.nanas.repository.CategoriaRepository;
-import com.nanas.nanas.repository.TransacaoRepository;
-import com.nanas.nanas.repository.UsuarioRepository;
+import com.nanas.nanas.model.ResumoMensal;
+import com.nanas.nanas.repository.ResumoMensalRepository;
+import com.nanas.nanas.repository.projection.TotalPorCategoriaMes;
+import com.nanas.nanas.service.agregacao.Centavos;
+import com.nanas.nanas.service.agregacao.SomaCentavos;
+import com.nanas.nanas.service.agregacao.SomasPorChave;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Service
+@CargaAnalitica
 @RequiredArgsConstructor
 public class InsightService {
     
-    private final TransacaoRepository transacaoRepository;
-    private final UsuarioRepository usuarioRepository;
-    private final CategoriaRepository categoriaRepository;
-    
+    private static final Logger logger = LoggerFactory.getLogger(InsightService.class);
+
+    // Mês atual e os 5 anteriores: a janela mais longa entre as regras
+    private static final int MESES_HISTORICO = 6;
+
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final AuthService authService;
+    private final VersaoDadosService versaoDadosService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${insights.cache.tamanho-maximo:5000}")
+    private long tamanhoMaximoCache;
+
+    @Value("${insights.cache.expiracao-minutos:60}")
+    private long expiracaoCacheMinutos;
+
+    // Uma entrada por usuário, válida só para o mês e a versão dos dados em que
+    // foi calculada (ver VersaoDadosService): escritas em qualquer instância a
+    // tornam obsoleta sem depender de invalidação local
+    private Cache<Long, InsightsDoMes> insightsPorUsuario;
+
+    @PostConstruct
+    void criarCache() {
+        insightsPorUsuario = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoCacheMinutos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, insightsPorUsuario, "insights");
+    }
+
     @Transactional(readOnly = true)
     public List<InsightDTO> gerarInsights(String firebaseUid) {
-        Usuario usuario = usuarioRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        Long usuarioId = authService.resolverUsuario(firebaseUid).getId();
+        YearMonth mesAtual = YearMonth.now();
+
+        InsightsDoMes emCache = insightsPorUsuario.getIfPresent(usuarioId);
+        if (emCache != null && emCache.mes.equals(mesAtual)
+                && emCache.versao >= versaoDadosService.versaoAtual(usuarioId)) {
+            return emCache.insights;
+        }
+        long versao = versaoDadosService.lerVersaoDados(usuarioId);
+        List<InsightDTO> insights = Collections.unmodifiableList(calcularInsights(usuarioId, mesAtual));
+        // Um cálculo mais lento, iniciado antes de uma escrita, não sobrescreve
+        // uma entrada mais nova
+        insightsPorUsuario.asMap().merge(usuarioId, new InsightsDoMes(mesAtual, versao, insights),
+                InsightsDoMes::maisRecente);
+        return insights;
+    }
+
+    private List<InsightDTO> calcularInsights(Long usuarioId, YearMonth mesAtual) {
+        // Uma consulta ao resumo mensal alimenta todas as regras
+        MatrizGastos matriz = carregarMatriz(usuarioId, mesAtual);
         
         List<InsightDTO> insights = new ArrayList<>();
         
         // Gerar insights de comparação mensal por categoria
-        insights.addAll(gerarInsightsComparacaoMensal(usuario));
+        aplicarRegra(insights, "comparacao_mensal", () -> gerarInsightsComparacaoMensal(matriz));
         
         // Gerar insights de gastos incomuns
-        insights.addAll(gerarInsightsGastosIncomuns(usuario));
+        aplicarRegra(insights, "gastos_incomuns", () -> gerarInsightsGastosIncomuns(matriz));
         
         // Gerar insights de tendências
-        insights.addAll(gerarInsightsTendencias(usuario));
+        aplicarRegra(insights, "tendencias", () -> gerarInsightsTendencias(matriz));
         
         // Gerar insights de economia
-        insights.addAll(gerarInsightsEconomia(usuario));
+        aplicarRegra(insights, "economia", () -> gerarInsightsEconomia(matriz));
         
         return insights;
     }
+
+    // As regras só leem a matriz em memória; uma regra com erro fica de fora
+    // e as demais seguem
+    private void aplicarRegra(List<InsightDTO> insights, String regra, Supplier<List<InsightDTO>> geracao) {
+        try {
+            insights.addAll(geracao.get());
+        } catch (RuntimeException e) {
+            meterRegistry.counter("insights.regras.falhas", "regra", regra).increment();
+            logger.warn("Falha na regra de insights {}", regra, e);
+        }
+    }
+
+    private MatrizGastos carregarMatriz(Long usuarioId, YearMonth mesAtual) {
+        MatrizGastos matriz = new MatrizGastos();
+        List<TotalPorCategoriaMes> totais = resumoMensalRepository.somarPorCategoriaEMes(
+                usuarioId, "DESPESA",
+                mesAtual.minusMonths(MESES_HISTORICO - 1).atDay(1), mesAtual.atDay(1));
+        
+        for (TotalPorCategoriaMes total : totais) {
+            int indice = (int) YearMonth.of(total.getAno(), total.getMes()).until(mesAtual, ChronoUnit.MONTHS);
+            if (indice < 0 || indice >= MESES_HISTORICO) {
+                continue;
+            }
+            long centavos = Centavos.de(total.getTotal());
+            matriz.totalPorMes[indice] = Math.addExact(matriz.totalPorMes[indice], centavos);
+            
+            Long categoriaId = total.getCategoriaId();
+            if (ResumoMensal.SEM_REFERENCIA.equals(categoriaId) || total.getCategoriaNome() == null) {
+                continue;
+            }
+            matriz.nomes.put(categoriaId, total.getCategoriaNome());
+            matriz.gastosPorMes[indice].adicionarCentavos(categoriaId, centavos);
+        }
+        return matriz;
+    }
     
-    private List<InsightDTO> gerarInsightsComparacaoMensal(Usuario usuario) {
+    private List<InsightDTO> gerarInsightsComparacaoMensal(MatrizGastos matriz) {
         List<InsightDTO> insights = new ArrayList<>();
         
-        LocalDate hoje = LocalDate.now();
-        LocalDate inicioMesAtual = hoje.withDayOfMonth(1);
-        LocalDate fimMesAtual = hoje.withDayOfMonth(hoje.lengthOfMonth());
-        
-        // Calcular média dos últimos 3 meses (excluindo o mês atual)
-        LocalDate inicioTresMesesAtras = inicioMesAtual.minusMonths(3);
-        LocalDate fimMesAnterior = inicioMesAtual.minusDays(1);
-        
-        List<Transacao> transacoesMesAtual = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMesAtual, fimMesAtual);
-        
-        List<Transacao> transacoesTresMesesAnteriores = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioTresMesesAtras, fimMesAnterior);
-        
-        // Agrupar por categoria
-        Map<Long, BigDecimal> gastosMesAtualPorCategoria = agruparGastosPorCategoria(transacoesMesAtual);
-        Map<Long, BigDecimal> gastosTresMesesPorCategoria = agruparGastosPorCategoria(transacoesTresMesesAnteriores);
-        
-        for (Map.Entry<Long, BigDecimal> entry : gastosMesAtualPorCategoria.entrySet()) {
-            Long categoriaId = entry.getKey();
-            BigDecimal gastoMesAtual = entry.getValue();
+        for (Map.Entry<Long, String> entry : matriz.nomes.entrySet()) {
+            BigDecimal[] gastos = matriz.linha(entry.getKey());
+            BigDecimal gastoMesAtual = gastos[0];
             
-            if (gastosTresMesesPorCategoria.containsKey(categoriaId)) {
-                BigDecimal gastoTresMeses = gastosTresMesesPorCategoria.get(categoriaId);
+            // Média dos últimos 3 meses (excluindo o mês atual)
+            BigDecimal gastoTresMeses = matriz.somar(entry.getKey(), 1, 4);
+            
+            if (gastoMesAtual != null && gastoTresMeses != null) {
                 BigDecimal mediaMensal = gastoTresMeses.divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP);
                 
                 if (mediaMensal.compareTo(BigDecimal.ZERO) > 0) {
@@ -84,33 +159,30 @@ public class InsightService {
                             .multiply(BigDecimal.valueOf(100));
                     
                     if (percentualVariacao.abs().compareTo(BigDecimal.valueOf(20)) > 0) {
-                        Optional<Categoria> categoriaOpt = categoriaRepository.findById(categoriaId);
-                        if (categoriaOpt.isPresent()) {
-                            String nomeCategoria = categoriaOpt.get().getNome();
-                            
-                            InsightDTO insight = new InsightDTO();
-                            insight.setCategoria(nomeCategoria);
-                            insight.setValorAtual(gastoMesAtual);
-                            insight.setValorComparacao(mediaMensal);
-                            insight.setPercentualVariacao(percentualVariacao);
-                            insight.setPeriodo("últimos 3 meses");
-                            
-                            if (percentualVariacao.compareTo(BigDecimal.ZERO) > 0) {
-                                insight.setTipo("ALERTA");
-                                insight.setTitulo("Aumento de gastos detectado");
-                                insight.setMensagem(String.format(
-                                        "Você gastou %.2f%% a mais com '%s' este mês em comparação com a média dos últimos 3 meses",
-                                        percentualVariacao, nomeCategoria));
-                            } else {
-                                insight.setTipo("SUCESSO");
-                                insight.setTitulo("Redução de gastos");
-                                insight.setMensagem(String.format(
-                                        "Você gastou %.2f%% a menos com '%s' este mês em comparação com a média dos últimos 3 meses",
-                                        percentualVariacao.abs(), nomeCategoria));
-                            }
-                            
-                            insights.add(insight);
+                        String nomeCategoria = entry.getValue();
+                        
+                        InsightDTO insight = new InsightDTO();
+                        insight.setCategoria(nomeCategoria);
+                        insight.setValorAtual(gastoMesAtual);
+                        insight.setValorComparacao(mediaMensal);
+                        insight.setPercentualVariacao(percentualVariacao);
+                        insight.setPeriodo("últimos 3 meses");
+                        
+                        if (percentualVariacao.compareTo(BigDecimal.ZERO) > 0) {
+                            insight.setTipo("ALERTA");
+                            insight.setTitulo("Aumento de gastos detectado");
+                            insight.setMensagem(String.format(
+                                    "Você gastou %.2f%% a mais com '%s' este mês em comparação com a média dos últimos 3 meses",
+                                    percentualVariacao, nomeCategoria));
+                        } else {
+                            insight.setTipo("SUCESSO");
+                            insight.setTitulo("Redução de gastos");
+                            insight.setMensagem(String.format(
+                                    "Você gastou %.2f%% a menos com '%s' este mês em comparação com a média dos últimos 3 meses",
+                                    percentualVariacao.abs(), nomeCategoria));
                         }
+                        
+                        insights.add(insight);
                     }
                 }
             }
@@ -119,78 +191,47 @@ public class InsightService {
         return insights;
     }
     
-    private List<InsightDTO> gerarInsightsGastosIncomuns(Usuario usuario) {
+    private List<InsightDTO> gerarInsightsGastosIncomuns(MatrizGastos matriz) {
         List<InsightDTO> insights = new ArrayList<>();
         
-        LocalDate hoje = LocalDate.now();
-        LocalDate inicioMesAtual = hoje.withDayOfMonth(1);
-        LocalDate fimMesAtual = hoje.withDayOfMonth(hoje.lengthOfMonth());
-        
-        // Calcular desvio padrão dos últimos 6 meses por categoria
-        LocalDate inicioSeisMesesAtras = inicioMesAtual.minusMonths(6);
-        
-        List<Transacao> transacoesSeisMeses = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioSeisMesesAtras, fimMesAtual);
-        
-        Map<Long, List<BigDecimal>> gastosMensaisPorCategoria = new HashMap<>();
-        
-        // Agrupar gastos por categoria e por mês
-        for (int i = 0; i < 6; i++) {
-            LocalDate inicioMes = inicioMesAtual.minusMonths(i);
-            LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
-            
-            List<Transacao> transacoesMes = transacoesSeisMeses.stream()
-                    .filter(t -> !t.getData().isBefore(inicioMes) && !t.getData().isAfter(fimMes))
-                    .collect(Collectors.toList());
-            
-            Map<Long, BigDecimal> gastosMes = agruparGastosPorCategoria(transacoesMes);
+        for (Map.Entry<Long, String> entry : matriz.nomes.entrySet()) {
+            BigDecimal[] gastos = matriz.linha(entry.getKey());
+            BigDecimal gastoAtual = gastos[0];
+            if (gastoAtual == null) {
+                continue;
+            }
             
-            for (Map.Entry<Long, BigDecimal> entry : gastosMes.entrySet()) {
-                gastosMensaisPorCategoria.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                        .add(entry.getValue());
+            // Meses com gasto na categoria nos últimos 6 meses, incluindo o atual
+            List<BigDecimal> gastosHistoricos = new ArrayList<>(MESES_HISTORICO);
+            for (BigDecimal gasto : gastos) {
+                if (gasto != null) {
+                    gastosHistoricos.add(gasto);
+                }
             }
-        }
-        
-        // Analisar gastos do mês atual
-        List<Transacao> transacoesMesAtual = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMesAtual, fimMesAtual);
-        
-        Map<Long, BigDecimal> gastosMesAtual = agruparGastosPorCategoria(transacoesMesAtual);
-        
-        for (Map.Entry<Long, BigDecimal> entry : gastosMesAtual.entrySet()) {
-            Long categoriaId = entry.getKey();
-            BigDecimal gastoAtual = entry.getValue();
             
-            if (gastosMensaisPorCategoria.containsKey(categoriaId)) {
-                List<BigDecimal> gastosHistoricos = gastosMensaisPorCategoria.get(categoriaId);
+            if (gastosHistoricos.size() >= 3) {
+                BigDecimal media = gastosHistoricos.stream()
+                        .collect(SomaCentavos.somando())
+                        .divide(BigDecimal.valueOf(gastosHistoricos.size()), 2, RoundingMode.HALF_UP);
+                
+                BigDecimal desvioPadrao = calcularDesvioPadrao(gastosHistoricos, media);
                 
-                if (gastosHistoricos.size() >= 3) {
-                    BigDecimal media = gastosHistoricos.stream()
-                            .reduce(BigDecimal.ZERO, BigDecimal::add)
-                            .divide(BigDecimal.valueOf(gastosHistoricos.size()), 2, RoundingMode.HALF_UP);
+                // Se o gasto atual está 2 desvios padrão acima da média, é incomum
+                if (gastoAtual.compareTo(media.add(desvioPadrao.multiply(BigDecimal.valueOf(2)))) > 0) {
+                    String nomeCategoria = entry.getValue();
                     
-                    BigDecimal desvioPadrao = calcularDesvioPadrao(gastosHistoricos, media);
+                    InsightDTO insight = new InsightDTO();
+                    insight.setTipo("ALERTA");
+                    insight.setCategoria(nomeCategoria);
+                    insight.setTitulo("Gasto incomum detectado");
+                    insight.setMensagem(String.format(
+                            "Detectamos um gasto incomum na categoria '%s'. Valor atual: R$ %.2f (média histórica: R$ %.2f)",
+                            nomeCategoria, gastoAtual, media));
+                    insight.setValorAtual(gastoAtual);
+                    insight.setValorComparacao(media);
+                    insight.setPeriodo("últimos 6 meses");
                     
-                    // Se o gasto atual está 2 desvios padrão acima da média, é incomum
-                    if (gastoAtual.compareTo(media.add(desvioPadrao.multiply(BigDecimal.valueOf(2)))) > 0) {
-                        Optional<Categoria> categoriaOpt = categoriaRepository.findById(categoriaId);
-                        if (categoriaOpt.isPresent()) {
-                            String nomeCategoria = categoriaOpt.get().getNome();
-                            
-                            InsightDTO insight = new InsightDTO();
-                            insight.setTipo("ALERTA");
-                            insight.setCategoria(nomeCategoria);
-                            insight.setTitulo("Gasto incomum detectado");
-                            insight.setMensagem(String.format(
-                                    "Detectamos um gasto incomum na categoria '%s'. Valor atual: R$ %.2f (média histórica: R$ %.2f)",
-                                    nomeCategoria, gastoAtual, media));
-                            insight.setValorAtual(gastoAtual);
-                            insight.setValorComparacao(media);
-                            insight.setPeriodo("últimos 6 meses");
-                            
-                            insights.add(insight);
-                        }
-                    }
+                    insights.add(insight);
                 }
             }
         }
@@ -198,54 +239,30 @@ public class InsightService {
         return insights;
     }
     
-    private List<InsightDTO> gerarInsightsTendencias(Usuario usuario) {
+    private List<InsightDTO> gerarInsightsTendencias(MatrizGastos matriz) {
         List<InsightDTO> insights = new ArrayList<>();
         
-        LocalDate hoje = LocalDate.now();
-        LocalDate inicioMesAtual = hoje.withDayOfMonth(1);
-        
-        // Analisar tendência dos últimos 3 meses
-        Map<Long, List<BigDecimal>> gastosTresMesesPorCategoria = new HashMap<>();
-        
-        for (int i = 0; i < 3; i++) {
-            LocalDate inicioMes = inicioMesAtual.minusMonths(i);
-            LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
-            
-            List<Transacao> transacoesMes = transacaoRepository.findByUsuarioAndDataBetween(
-                    usuario, inicioMes, fimMes);
+        // Verificar tendências crescentes nos últimos 3 meses
+        for (Map.Entry<Long, String> entry : matriz.nomes.entrySet()) {
+            BigDecimal[] gastos = matriz.linha(entry.getKey());
             
-            Map<Long, BigDecimal> gastosMes = agruparGastosPorCategoria(transacoesMes);
-            
-            for (Map.Entry<Long, BigDecimal> entry : gastosMes.entrySet()) {
-                gastosTresMesesPorCategoria.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                        .add(0, entry.getValue()); // Adiciona no início para manter ordem cronológica
-            }
-        }
-        
-        // Verificar tendências crescentes
-        for (Map.Entry<Long, List<BigDecimal>> entry : gastosTresMesesPorCategoria.entrySet()) {
-            List<BigDecimal> gastos = entry.getValue();
-            
-            if (gastos.size() == 3) {
+            if (gastos[0] != null && gastos[1] != null && gastos[2] != null) {
                 // Verificar se há tendência crescente consistente
-                if (gastos.get(1).compareTo(gastos.get(0)) > 0 && 
-                    gastos.get(2).compareTo(gastos.get(1)) > 0) {
+                if (gastos[1].compareTo(gastos[2]) > 0 && 
+                    gastos[0].compareTo(gastos[1]) > 0) {
                     
-                    Optional<Categoria> categoriaOpt = categoriaRepository.findById(entry.getKey());
-                    if (categoriaOpt.isPresent()) {
-                        String nomeCategoria = categoriaOpt.get().getNome();
-                        
-                        InsightDTO insight = new InsightDTO();
-                        insight.setTipo("INFORMACAO");
-                        insight.setCategoria(nomeCategoria);
-                        insight.setTitulo("Tendência de aumento");
-                        insight.setMensagem(String.format(
-                                "Seus gastos com '%s' têm aumentado consistentemente nos últimos 3 meses",
-                                nomeCategoria));
-                        insight.setPeriodo("últimos 3 meses");
-                        
-                        insights.add(insight);
-                    }
+                    String nomeCategoria = entry.getValue();
+                    
+                    InsightDTO insight = new InsightDTO();
+                    insight.setTipo("INFORMACAO");
+                    insight.setCategoria(nomeCategoria);
+                    insight.setTitulo("Tendência de aumento");
+                    insight.setMensagem(String.format(
+                            "Seus gastos com '%s' têm aumentado consistentemente nos últimos 3 meses",
+                            nomeCategoria));
+                    insight.setPeriodo("últimos 3 meses");
+                    
+                    insights.add(insight);
                 }
             }
         }
@@ -253,31 +270,11 @@ public class InsightService {
         return insights;
     }
     
-    private List<InsightDTO> gerarInsightsEconomia(Usuario usuario) {
+    private List<InsightDTO> gerarInsightsEconomia(MatrizGastos matriz) {
         List<InsightDTO> insights = new ArrayList<>();
         
-        LocalDate hoje = LocalDate.now();
-        LocalDate inicioMesAtual = hoje.withDayOfMonth(1);
-        LocalDate fimMesAtual = hoje.withDayOfMonth(hoje.lengthOfMonth());
-        
-        LocalDate inicioMesAnterior = inicioMesAtual.minusMonths(1);
-        LocalDate fimMesAnterior = inicioMesAnterior.withDayOfMonth(inicioMesAnterior.lengthOfMonth());
-        
-        List<Transacao> transacoesMesAtual = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMesAtual, fimMesAtual);
-        
-        List<Transacao> transacoesMesAnterior = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMesAnterior, fimMesAnterior);
-        
-        BigDecimal totalDespesasMesAtual = transacoesMesAtual.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalDespesasMesAnterior = transacoesMesAnterior.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalDespesasMesAtual = Centavos.paraBigDecimal(matriz.totalPorMes[0]);
+        BigDecimal totalDespesasMesAnterior = Centavos.paraBigDecimal(matriz.totalPorMes[1]);
         
         if (totalDespesasMesAnterior.compareTo(BigDecimal.ZERO) > 0) {
             BigDecimal economia = totalDespesasMesAnterior.subtract(totalDespesasMesAtual);
@@ -304,19 +301,6 @@ public class InsightService {
         return insights;
     }
     
-    private Map<Long, BigDecimal> agruparGastosPorCategoria(List<Transacao> transacoes) {
-        Map<Long, BigDecimal> gastosPorCategoria = new HashMap<>();
-        
-        for (Transacao transacao : transacoes) {
-            if ("DESPESA".equals(transacao.getTipo()) && transacao.getCategoria() != null) {
-                Long categoriaId = transacao.getCategoria().getId();
-                gastosPorCategoria.merge(categoriaId, transacao.getValor(), BigDecimal::add);
-            }
-        }
-        
-        return gastosPorCategoria;
-    }
-    
     private BigDecimal calcularDesvioPadrao(List<BigDecimal> valores, BigDecimal media) {
         if (valores.isEmpty()) {
             return BigDecimal.ZERO;
@@ -331,4 +315,59 @@ public class InsightService {
         
         return BigDecimal.valueOf(Math.sqrt(variancia.doubleValue()));
     }
+
+    /**
+     * Despesas em centavos por mês e categoria: posição 0 é o mês atual,
+     * i são i meses atrás.
+     */
+    private static final class MatrizGastos {
+        private final SomasPorChave[] gastosPorMes = new SomasPorChave[MESES_HISTORICO];
+        private final Map<Long, String> nomes = new HashMap<>();
+        private final long[] totalPorMes = new long[MESES_HISTORICO];
+
+        private MatrizGastos() {
+            Arrays.setAll(gastosPorMes, i -> new SomasPorChave());
+        }
+
+        // Linha da categoria para as regras; null nos meses sem despesa nela
+        private BigDecimal[] linha(long categoriaId) {
+            BigDecimal[] gastos = new BigDecimal[MESES_HISTORICO];
+            for (int i = 0; i < MESES_HISTORICO; i++) {
+                if (gastosPorMes[i].contem(categoriaId)) {
+                    gastos[i] = gastosPorMes[i].total(categoriaId);
+                }
+            }
+            return gastos;
+        }
+
+        // Soma dos meses [inicio, fim); null se a categoria não teve despesa em nenhum
+        private BigDecimal somar(long categoriaId, int inicio, int fim) {
+            boolean encontrou = false;
+            long centavos = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (gastosPorMes[i].contem(categoriaId)) {
+                    encontrou = true;
+                    centavos = Math.addExact(centavos, gastosPorMes[i].centavos(categoriaId));
+                }
+            }
+            return encontrou ? Centavos.paraBigDecimal(centavos) : null;
+        }
+    }
+
+    private static final class InsightsDoMes {
+        private final YearMonth mes;
+        private final long versao;
+        private final List<InsightDTO> insights;
+
+        private InsightsDoMes(YearMonth mes, long versao, List<InsightDTO> insights) {
+            this.mes = mes;
+            this.versao = versao;
+            this.insights = insights;
+        }
+
+        private static InsightsDoMes maisRecente(InsightsDoMes atual, InsightsDoMes novo) {
+            int comparacao = novo.mes.compareTo(atual.mes);
+            return comparacao > 0 || (comparacao == 0 && novo.versao >= atual.versao) ? novo : atual;
+        }
+    }
 }
@@ -5,13 +5,14 @@ import com.nanas.nanas.dto.MetaResponse;
 import com.nanas.nanas.exception.ResourceNotFoundException;
 import com.nanas.nanas.model.Categoria;
 import com.nanas.nanas.model.Meta;
-import com.nanas.nanas.model.Transacao;
 import com.nanas.nanas.model.Usuario;
 import com.nanas.nanas.model.enums.PeriodoMeta;
 import com.nanas.nanas.repository.CategoriaRepository;
 import com.nanas.nanas.repository.MetaRepository;
+import com.nanas.nanas.repository.ResumoMensalRepository;
 import com.nanas.nanas.repository.TransacaoRepository;
 import com.nanas.nanas.repository.UsuarioRepository;
+import com.nanas.nanas.service.agregacao.SomaCentavos;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +20,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +29,8 @@ public class MetaService {
     private final UsuarioRepository usuarioRepository;
     private final CategoriaRepository categoriaRepository;
     private final TransacaoRepository transacaoRepository;
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final VersaoDadosService versaoDadosService;
 
     // ---------------------------
     // CRIAR META
@@ -70,6 +72,7 @@ public class MetaService {
         meta = metaRepository.save(meta);
 
         atualizarValorAtualMeta(meta);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(meta);
     }
@@ -80,14 +83,11 @@ public class MetaService {
     @Transactional(readOnly = true)
     public List<MetaResponse> listarMetas(Long usuarioId) {
 
-        usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        List<Meta> metas = metaRepository.findByUsuarioId(usuarioId);
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResourceNotFoundException("Usuário não encontrado");
+        }
 
-        return metas.stream()
-                .map(this::converterParaResponse)
-                .collect(Collectors.toList());
+        return metaRepository.listarRespostasPorUsuario(usuarioId);
     }
 
     // ---------------------------
@@ -96,14 +96,11 @@ public class MetaService {
     @Transactional(readOnly = true)
     public List<MetaResponse> listarMetasAtivas(Long usuarioId) {
 
-        usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        List<Meta> metas = metaRepository.findByUsuarioIdAndAtivaTrue(usuarioId);
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResourceNotFoundException("Usuário não encontrado");
+        }
 
-        return metas.stream()
-                .map(this::converterParaResponse)
-                .collect(Collectors.toList());
+        return metaRepository.listarRespostasAtivasPorUsuario(usuarioId);
     }
 
     // ---------------------------
@@ -165,6 +162,7 @@ public class MetaService {
         meta = metaRepository.save(meta);
 
         atualizarValorAtualMeta(meta);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(meta);
     }
@@ -186,6 +184,7 @@ public class MetaService {
         }
 
         metaRepository.delete(meta);
+        versaoDadosService.incrementar(usuarioId);
     }
 
     // ---------------------------
@@ -206,6 +205,7 @@ public class MetaService {
 
         meta.setAtiva(ativa);
         meta = metaRepository.save(meta);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(meta);
     }
@@ -213,26 +213,47 @@ public class MetaService {
     // ---------------------------
     // RECALCULAR VALOR ATUAL
     // ---------------------------
+    /**
+     * Os meses inteiros do período vêm do resumo mensal; só as pontas que
+     * começam ou terminam no meio de um mês são somadas das transações.
+     */
     @Transactional
     public void atualizarValorAtualMeta(Meta meta) {
 
-        List<Transacao> transacoes = transacaoRepository
-                .findByUsuarioIdAndCategoria_IdAndDataBetween(
-                        meta.getUsuario().getId(),
-                        meta.getCategoria().getId(),
-                        meta.getDataInicio(),
-                        meta.getDataFim()
-                );
+        Long usuarioId = meta.getUsuario().getId();
+        Long categoriaId = meta.getCategoria().getId();
+        LocalDate inicio = meta.getDataInicio();
+        LocalDate fim = meta.getDataFim();
+
+        LocalDate primeiroMesInteiro = inicio.getDayOfMonth() == 1 ? inicio : inicio.plusMonths(1).withDayOfMonth(1);
+        LocalDate fimUltimoMesInteiro = fim.getDayOfMonth() == fim.lengthOfMonth() ? fim : fim.withDayOfMonth(1).minusDays(1);
 
-        BigDecimal valorAtual = transacoes.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        SomaCentavos valorAtual = new SomaCentavos();
+        if (primeiroMesInteiro.isAfter(fimUltimoMesInteiro)) {
+            somar(valorAtual, transacaoRepository.somarPorCategoriaETipo(usuarioId, categoriaId, "DESPESA", inicio, fim));
+        } else {
+            somar(valorAtual, resumoMensalRepository.somarPorCategoriaETipo(usuarioId, categoriaId, "DESPESA",
+                    primeiroMesInteiro, fimUltimoMesInteiro.withDayOfMonth(1)));
+            if (inicio.isBefore(primeiroMesInteiro)) {
+                somar(valorAtual, transacaoRepository.somarPorCategoriaETipo(usuarioId, categoriaId, "DESPESA",
+                        inicio, primeiroMesInteiro.minusDays(1)));
+            }
+            if (fim.isAfter(fimUltimoMesInteiro)) {
+                somar(valorAtual, transacaoRepository.somarPorCategoriaETipo(usuarioId, categoriaId, "DESPESA",
+                        fimUltimoMesInteiro.plusDays(1), fim));
+            }
+        }
 
-        meta.setValorAtual(valorAtual);
+        meta.setValorAtual(valorAtual.total());
         metaRepository.save(meta);
     }
 
+    private static void somar(SomaCentavos soma, BigDecimal valor) {
+        if (valor != null) {
+            soma.adicionar(valor);
+        }
+    }
+
     // ---------------------------
     // ATUALIZAR METAS APÓS TRANSAÇÃO
     // ---------------------------
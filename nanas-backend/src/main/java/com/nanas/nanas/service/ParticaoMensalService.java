@@ -0,0 +1,54 @@
+package com.nanas.nanas.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Manutenção das partições mensais de transacoes e transacoes_cartao_credito.
+ * Cria com antecedência as partições dos próximos meses para que nenhuma
+ * escrita caia na partição padrão.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParticaoMensalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticaoMensalService.class);
+
+    private static final List<String> TABELAS_PARTICIONADAS = List.of("transacoes", "transacoes_cartao_credito");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${particionamento.meses-antecedencia:3}")
+    private int mesesAntecedencia;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${particionamento.cron:0 0 3 1 * *}")
+    public void criarParticoesFuturas() {
+        YearMonth mesAtual = YearMonth.now();
+        for (String tabela : TABELAS_PARTICIONADAS) {
+            for (int i = 0; i <= mesesAntecedencia; i++) {
+                YearMonth mes = mesAtual.plusMonths(i);
+                try {
+                    jdbcTemplate.queryForList("SELECT criar_particao_mensal(?, ?)", tabela, Date.valueOf(mes.atDay(1)));
+                } catch (DataAccessException e) {
+                    // Um mês que falha não impede os demais nem a subida da aplicação;
+                    // as escritas desse mês seguem indo para a partição padrão
+                    logger.error("Falha ao criar a partição de {} para {}", tabela, mes, e);
+                }
+            }
+        }
+        logger.info("Partições mensais garantidas até {}", mesAtual.plusMonths(mesesAntecedencia));
+    }
+}
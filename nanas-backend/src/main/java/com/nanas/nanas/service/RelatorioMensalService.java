@@ -1,67 +1,161 @@
 package com.nanas.nanas.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nanas.nanas.config.CargaAnalitica;
 import com.nanas.nanas.dto.*;
-import com.nanas.nanas.exception.ResourceNotFoundException;
 import com.nanas.nanas.model.*;
 import com.nanas.nanas.repository.*;
+import com.nanas.nanas.repository.projection.TotalPorCategoria;
+import com.nanas.nanas.repository.projection.TotalPorTipoMes;
+import com.nanas.nanas.service.agregacao.SomaCentavos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
+@CargaAnalitica
 @RequiredArgsConstructor
 public class RelatorioMensalService {
     
     private final TransacaoRepository transacaoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final AuthService authService;
     private final CarteiraRepository carteiraRepository;
     private final MetaRepository metaRepository;
-    
-    @Transactional(readOnly = true)
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final MeterRegistry meterRegistry;
+    private final SecoesParalelas secoesParalelas;
+    private final VersaoDadosService versaoDadosService;
+
+    @Value("${relatorios.cache.tamanho-maximo:20000}")
+    private long tamanhoMaximoCache;
+
+    @Value("${relatorios.cache.expiracao-horas:24}")
+    private long expiracaoCacheHoras;
+
+    // "usuarioId:AAAA-MM" -> números de um mês já encerrado, com a versão em que foram lidos
+    private Cache<String, ResumoPeriodo> periodosFechados;
+
+    @PostConstruct
+    void criarCache() {
+        periodosFechados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofHours(expiracaoCacheHoras))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, periodosFechados, "relatorios_fechados");
+    }
+
+    /**
+     * Para meses encerrados, totais, categorias e maiores transações vêm de um
+     * snapshot em cache, carimbado com usuarios.versao_meses_fechados. O snapshot
+     * só é servido se o carimbo alcança a versão atual, que qualquer instância
+     * incrementa ao gravar uma transação retroativa ou mexer em categorias (ver
+     * VersaoDadosService). Metas e carteiras mostram sempre a situação atual.
+     * <p>
+     * Cada seção consulta o banco em paralelo, na sua própria transação de
+     * leitura (ver SecoesParalelas); esta thread só consulta a versão, em cache curto.
+     */
     public RelatorioMensalDTO gerarRelatorioMensal(String firebaseUid, Integer ano, Integer mes) {
-        Usuario usuario = usuarioRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        Long usuarioId = authService.resolverUsuario(firebaseUid).getId();
         
         YearMonth periodo = YearMonth.of(ano, mes);
         LocalDate inicioMes = periodo.atDay(1);
+
+        SecoesParalelas.Execucao secoes = secoesParalelas.iniciar("relatorio_mensal");
+        CompletableFuture<List<MetaProgressoDTO>> metas = secoes.executar("metas",
+                () -> calcularProgressoMetas(usuarioId, inicioMes), Collections.emptyList());
+        CompletableFuture<ResumoCarteirasDTO> carteiras = secoes.executar("carteiras",
+                () -> gerarResumoCarteiras(usuarioId), new ResumoCarteirasDTO(BigDecimal.ZERO, Collections.emptyList()));
+
+        ResumoPeriodo resumo;
+        if (periodo.isBefore(YearMonth.now())) {
+            String chave = chaveCache(usuarioId, periodo);
+            long versaoAtual = versaoDadosService.versaoMesesFechadosAtual(usuarioId);
+            resumo = periodosFechados.getIfPresent(chave);
+            if (resumo == null || resumo.versao < versaoAtual) {
+                resumo = calcularResumoPeriodo(secoes, usuarioId, periodo);
+                // Snapshot parcial não vai para o cache; um cálculo mais lento e
+                // mais antigo não substitui o que já foi gravado com versão maior
+                if (resumo.completo) {
+                    periodosFechados.asMap().merge(chave, resumo, ResumoPeriodo::maisRecente);
+                }
+            }
+        } else {
+            resumo = calcularResumoPeriodo(secoes, usuarioId, periodo);
+        }
+
+        RelatorioMensalDTO relatorio = new RelatorioMensalDTO();
+        relatorio.setPeriodo(periodo);
+        relatorio.setTotalReceitas(resumo.totalReceitas);
+        relatorio.setTotalDespesas(resumo.totalDespesas);
+        relatorio.setSaldoFinal(resumo.saldoFinal);
+        relatorio.setVariacaoMesAnterior(resumo.variacaoMesAnterior);
+        relatorio.setPercentualVariacao(resumo.percentualVariacao);
+        relatorio.setDespesasPorCategoria(resumo.despesasPorCategoria);
+        relatorio.setProgressoMetas(metas.join());
+        relatorio.setMaioresTransacoes(resumo.maioresTransacoes);
+        relatorio.setResumoCarteiras(carteiras.join());
+        relatorio.setStatusFinanceiro(resumo.statusFinanceiro);
+        relatorio.setSecoesIndisponiveis(secoes.getIndisponiveis());
+        
+        return relatorio;
+    }
+
+    private static String chaveCache(Long usuarioId, YearMonth mes) {
+        return usuarioId + ":" + mes;
+    }
+
+    private ResumoPeriodo calcularResumoPeriodo(SecoesParalelas.Execucao secoes, Long usuarioId, YearMonth periodo) {
+        LocalDate inicioMes = periodo.atDay(1);
         LocalDate fimMes = periodo.atEndOfMonth();
+        YearMonth mesAnterior = periodo.minusMonths(1);
         
-        // Buscar transações do mês
-        List<Transacao> transacoesMes = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMes, fimMes);
+        // Totais do mês e do mês anterior a partir do resumo mensal
+        CompletableFuture<Versionado<List<TotalPorTipoMes>>> totaisFuturos = secoes.executar("totais",
+                versionado(usuarioId, () -> resumoMensalRepository.somarPorTipoEMes(usuarioId, mesAnterior.atDay(1), inicioMes)),
+                Versionado.vazio());
         
-        // Calcular totais
-        BigDecimal totalReceitas = transacoesMes.stream()
-                .filter(t -> "RECEITA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Agrupar despesas por categoria
+        CompletableFuture<Versionado<List<DespesaPorCategoriaDTO>>> categoriasFuturas = secoes.executar("categorias",
+                versionado(usuarioId, () -> agruparDespesasPorCategoria(resumoMensalRepository.somarPorCategoria(usuarioId, "DESPESA", inicioMes))),
+                Versionado.vazio());
         
-        BigDecimal totalDespesas = transacoesMes.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Buscar maiores transações
+        CompletableFuture<Versionado<List<TransacaoResumoDTO>>> maioresFuturas = secoes.executar("maiores_transacoes",
+                versionado(usuarioId, () -> buscarMaioresTransacoes(usuarioId, inicioMes, fimMes)),
+                Versionado.vazio());
         
-        BigDecimal saldoFinal = totalReceitas.subtract(totalDespesas);
+        Versionado<List<TotalPorTipoMes>> totaisVersionados = totaisFuturos.join();
+        Versionado<List<DespesaPorCategoriaDTO>> categoriasVersionadas = categoriasFuturas.join();
+        Versionado<List<TransacaoResumoDTO>> maioresVersionadas = maioresFuturas.join();
+        List<TotalPorTipoMes> totais = totaisVersionados.valor;
+        List<DespesaPorCategoriaDTO> despesasPorCategoria = categoriasVersionadas.valor;
+        List<TransacaoResumoDTO> maioresTransacoes = maioresVersionadas.valor;
+        // Cada seção leu em um instante; o snapshot vale pela mais antiga
+        long versao = Math.min(totaisVersionados.versao, Math.min(categoriasVersionadas.versao, maioresVersionadas.versao));
         
-        // Calcular variação em relação ao mês anterior
-        YearMonth mesAnterior = periodo.minusMonths(1);
-        LocalDate inicioMesAnterior = mesAnterior.atDay(1);
-        LocalDate fimMesAnterior = mesAnterior.atEndOfMonth();
+        BigDecimal totalReceitas = somarTotal(totais, periodo, "RECEITA");
+        BigDecimal totalDespesas = somarTotal(totais, periodo, "DESPESA");
         
-        List<Transacao> transacoesMesAnterior = transacaoRepository.findByUsuarioAndDataBetween(
-                usuario, inicioMesAnterior, fimMesAnterior);
+        BigDecimal saldoFinal = totalReceitas.subtract(totalDespesas);
         
-        BigDecimal totalDespesasMesAnterior = transacoesMesAnterior.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .map(Transacao::getValor)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Calcular variação em relação ao mês anterior
+        BigDecimal totalDespesasMesAnterior = somarTotal(totais, mesAnterior, "DESPESA");
         
         BigDecimal variacaoMesAnterior = totalDespesas.subtract(totalDespesasMesAnterior);
         BigDecimal percentualVariacao = BigDecimal.ZERO;
@@ -71,72 +165,69 @@ public class RelatorioMensalService {
                     .multiply(BigDecimal.valueOf(100));
         }
         
-        // Agrupar despesas por categoria
-        List<DespesaPorCategoriaDTO> despesasPorCategoria = agruparDespesasPorCategoria(transacoesMes);
-        
-        // Buscar progresso das metas
-        List<MetaProgressoDTO> progressoMetas = calcularProgressoMetas(usuario, inicioMes, fimMes);
-        
-        // Buscar maiores transações
-        List<TransacaoResumoDTO> maioresTransacoes = buscarMaioresTransacoes(transacoesMes);
-        
-        // Resumo das carteiras
-        ResumoCarteirasDTO resumoCarteiras = gerarResumoCarteiras(usuario);
-        
         // Determinar status financeiro
         String statusFinanceiro = determinarStatusFinanceiro(saldoFinal, percentualVariacao);
         
-        RelatorioMensalDTO relatorio = new RelatorioMensalDTO();
-        relatorio.setPeriodo(periodo);
-        relatorio.setTotalReceitas(totalReceitas);
-        relatorio.setTotalDespesas(totalDespesas);
-        relatorio.setSaldoFinal(saldoFinal);
-        relatorio.setVariacaoMesAnterior(variacaoMesAnterior);
-        relatorio.setPercentualVariacao(percentualVariacao);
-        relatorio.setDespesasPorCategoria(despesasPorCategoria);
-        relatorio.setProgressoMetas(progressoMetas);
-        relatorio.setMaioresTransacoes(maioresTransacoes);
-        relatorio.setResumoCarteiras(resumoCarteiras);
-        relatorio.setStatusFinanceiro(statusFinanceiro);
-        
-        return relatorio;
+        boolean completo = !secoes.isIndisponivel("totais") && !secoes.isIndisponivel("categorias")
+                && !secoes.isIndisponivel("maiores_transacoes");
+        return new ResumoPeriodo(totalReceitas, totalDespesas, saldoFinal, variacaoMesAnterior, percentualVariacao,
+                Collections.unmodifiableList(despesasPorCategoria), Collections.unmodifiableList(maioresTransacoes),
+                statusFinanceiro, completo, versao);
+    }
+
+    /**
+     * Lê a versão dos meses encerrados antes da consulta e na mesma transação
+     * da seção: o resultado inclui ao menos as escritas até essa versão, mesmo
+     * vindo de uma réplica atrasada.
+     */
+    private <T> Supplier<Versionado<T>> versionado(Long usuarioId, Supplier<T> calculo) {
+        return () -> {
+            long versao = versaoDadosService.lerVersaoMesesFechados(usuarioId);
+            return new Versionado<>(versao, calculo.get());
+        };
     }
     
-    @Transactional(readOnly = true)
     public RelatorioMensalDTO gerarRelatorioMesAtual(String firebaseUid) {
         LocalDate hoje = LocalDate.now();
         return gerarRelatorioMensal(firebaseUid, hoje.getYear(), hoje.getMonthValue());
     }
     
-    private List<DespesaPorCategoriaDTO> agruparDespesasPorCategoria(List<Transacao> transacoes) {
-        Map<String, BigDecimal> despesasPorCategoria = new HashMap<>();
-        
-        for (Transacao transacao : transacoes) {
-            if ("DESPESA".equals(transacao.getTipo())) {
-                String categoria = transacao.getCategoria() != null ? 
-                        transacao.getCategoria().getNome() : "Sem categoria";
-                despesasPorCategoria.merge(categoria, transacao.getValor(), BigDecimal::add);
-            }
+    private BigDecimal somarTotal(List<TotalPorTipoMes> totais, YearMonth mes, String tipo) {
+        return totais.stream()
+                .filter(t -> tipo.equals(t.getTipo()) && mes.equals(YearMonth.of(t.getAno(), t.getMes())))
+                .map(TotalPorTipoMes::getTotal)
+                .collect(SomaCentavos.somando());
+    }
+    
+    private List<DespesaPorCategoriaDTO> agruparDespesasPorCategoria(List<TotalPorCategoria> totaisPorCategoria) {
+        Map<String, SomaCentavos> despesasPorCategoria = new HashMap<>();
+        SomaCentavos somaDespesas = new SomaCentavos();
+        
+        for (TotalPorCategoria total : totaisPorCategoria) {
+            String categoria = total.getCategoriaNome() != null ? 
+                    total.getCategoriaNome() : "Sem categoria";
+            despesasPorCategoria.computeIfAbsent(categoria, k -> new SomaCentavos()).adicionar(total.getTotal());
+            somaDespesas.adicionar(total.getTotal());
         }
         
-        BigDecimal totalDespesas = despesasPorCategoria.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalDespesas = somaDespesas.total();
         
         return despesasPorCategoria.entrySet().stream()
                 .map(entry -> {
+                    BigDecimal valor = entry.getValue().total();
                     BigDecimal percentual = BigDecimal.ZERO;
                     if (totalDespesas.compareTo(BigDecimal.ZERO) > 0) {
-                        percentual = entry.getValue().divide(totalDespesas, 4, RoundingMode.HALF_UP)
+                        percentual = valor.divide(totalDespesas, 4, RoundingMode.HALF_UP)
                                 .multiply(BigDecimal.valueOf(100));
                     }
-                    return new DespesaPorCategoriaDTO(entry.getKey(), entry.getValue(), percentual);
+                    return new DespesaPorCategoriaDTO(entry.getKey(), valor, percentual);
                 })
                 .sorted((a, b) -> b.getValor().compareTo(a.getValor()))
                 .collect(Collectors.toList());
     }
     
-    private List<MetaProgressoDTO> calcularProgressoMetas(Usuario usuario, LocalDate inicio, LocalDate fim) {
-        List<Meta> metas = metaRepository.findMetasAtivasNoPeriodo(usuario.getId(), inicio);
+    private List<MetaProgressoDTO> calcularProgressoMetas(Long usuarioId, LocalDate inicio) {
+        List<Meta> metas = metaRepository.findMetasAtivasNoPeriodo(usuarioId, inicio);
         
         return metas.stream()
                 .map(meta -> {
@@ -167,11 +258,11 @@ public class RelatorioMensalService {
                 .collect(Collectors.toList());
     }
     
-    private List<TransacaoResumoDTO> buscarMaioresTransacoes(List<Transacao> transacoes) {
-        return transacoes.stream()
-                .filter(t -> "DESPESA".equals(t.getTipo()))
-                .sorted((a, b) -> b.getValor().compareTo(a.getValor()))
-                .limit(5)
+    private List<TransacaoResumoDTO> buscarMaioresTransacoes(Long usuarioId, LocalDate inicio, LocalDate fim) {
+        // Referência sem SELECT: o id vem do cache de usuários do AuthService
+        Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+        return transacaoRepository.findTop5ByUsuarioAndTipoAndDataBetweenOrderByValorDesc(usuario, "DESPESA", inicio, fim)
+                .stream()
                 .map(t -> new TransacaoResumoDTO(
                         t.getDescricao(),
                         t.getValor(),
@@ -182,12 +273,12 @@ public class RelatorioMensalService {
                 .collect(Collectors.toList());
     }
     
-    private ResumoCarteirasDTO gerarResumoCarteiras(Usuario usuario) {
-        List<Carteira> carteiras = carteiraRepository.findByUsuario(usuario);
+    private ResumoCarteirasDTO gerarResumoCarteiras(Long usuarioId) {
+        List<Carteira> carteiras = carteiraRepository.findByUsuario(usuarioRepository.getReferenceById(usuarioId));
         
         BigDecimal saldoTotal = carteiras.stream()
                 .map(Carteira::getSaldo)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(SomaCentavos.somando());
         
         List<CarteiraResumoDTO> carteirasResumo = carteiras.stream()
                 .map(c -> new CarteiraResumoDTO(
@@ -211,4 +302,53 @@ public class RelatorioMensalService {
             return "NEUTRO";
         }
     }
+
+    private static final class ResumoPeriodo {
+        private final BigDecimal totalReceitas;
+        private final BigDecimal totalDespesas;
+        private final BigDecimal saldoFinal;
+        private final BigDecimal variacaoMesAnterior;
+        private final BigDecimal percentualVariacao;
+        private final List<DespesaPorCategoriaDTO> despesasPorCategoria;
+        private final List<TransacaoResumoDTO> maioresTransacoes;
+        private final String statusFinanceiro;
+        private final boolean completo;
+        private final long versao;
+
+        private ResumoPeriodo(BigDecimal totalReceitas, BigDecimal totalDespesas, BigDecimal saldoFinal,
+                              BigDecimal variacaoMesAnterior, BigDecimal percentualVariacao,
+                              List<DespesaPorCategoriaDTO> despesasPorCategoria,
+                              List<TransacaoResumoDTO> maioresTransacoes, String statusFinanceiro,
+                              boolean completo, long versao) {
+            this.totalReceitas = totalReceitas;
+            this.totalDespesas = totalDespesas;
+            this.saldoFinal = saldoFinal;
+            this.variacaoMesAnterior = variacaoMesAnterior;
+            this.percentualVariacao = percentualVariacao;
+            this.despesasPorCategoria = despesasPorCategoria;
+            this.maioresTransacoes = maioresTransacoes;
+            this.statusFinanceiro = statusFinanceiro;
+            this.completo = completo;
+            this.versao = versao;
+        }
+
+        private static ResumoPeriodo maisRecente(ResumoPeriodo atual, ResumoPeriodo novo) {
+            return novo.versao > atual.versao ? novo : atual;
+        }
+    }
+
+    private static final class Versionado<T> {
+        private final long versao;
+        private final T valor;
+
+        private Versionado(long versao, T valor) {
+            this.versao = versao;
+            this.valor = valor;
+        }
+
+        // Seção que falhou: o resumo sai incompleto e não é guardado, a versão não importa
+        private static <E> Versionado<List<E>> vazio() {
+            return new Versionado<>(-1L, Collections.emptyList());
+        }
+    }
 }
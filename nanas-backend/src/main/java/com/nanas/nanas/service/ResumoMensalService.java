@@ -0,0 +1,219 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.model.ResumoMensal;
+import com.nanas.nanas.model.Transacao;
+import com.nanas.nanas.model.TransacaoCartaoCredito;
+import com.nanas.nanas.repository.ResumoMensalRepository;
+import com.nanas.nanas.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém a tabela resumo_mensal, consolidado usado por dashboards e relatórios.
+ * As escritas de transações chamam registrar/estornar dentro da mesma transação;
+ * cada upsert segura a trava compartilhada do usuário (ver ResumoMensalRepository.acumular).
+ */
+@Service
+@RequiredArgsConstructor
+public class ResumoMensalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumoMensalService.class);
+
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transacaoPorUsuario;
+
+    @PostConstruct
+    void criarTransacaoPorUsuario() {
+        transacaoPorUsuario = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public void registrar(Transacao transacao) {
+        acumular(transacao, BigDecimal.ONE, 1L);
+    }
+
+    @Transactional
+    public void estornar(Transacao transacao) {
+        acumular(transacao, BigDecimal.ONE.negate(), -1L);
+    }
+
+    @Transactional
+    public void registrar(TransacaoCartaoCredito transacao) {
+        acumular(transacao, BigDecimal.ONE, 1L);
+    }
+
+    @Transactional
+    public void estornar(TransacaoCartaoCredito transacao) {
+        acumular(transacao, BigDecimal.ONE.negate(), -1L);
+    }
+
+    /**
+     * Aplica de uma vez os deltas acumulados em memória: um upsert por chave
+     * do resumo, em vez de um por transação.
+     */
+    @Transactional
+    public void registrar(Lote lote) {
+        lote.deltas.forEach((chave, delta) -> resumoMensalRepository.acumular(
+                chave.getUsuarioId(),
+                chave.getMesReferencia(),
+                chave.getCategoriaId(),
+                chave.getTipo(),
+                chave.getCarteiraId(),
+                delta.total,
+                delta.quantidade));
+    }
+
+    // ---------------------------
+    // RECONSTRUIR A PARTIR DOS DADOS BRUTOS
+    // ---------------------------
+    /**
+     * Reconstrói o resumo usuário a usuário, cada um em uma transação curta.
+     * A trava exclusiva do usuário espera as escritas dele em andamento e segura
+     * as novas até o commit; os demais usuários não são afetados. Sem ela, um
+     * upsert concorrente de chave nova colidiria com o INSERT ... SELECT.
+     */
+    @Scheduled(cron = "${resumo-mensal.reconstrucao.cron:0 0 4 * * *}")
+    public void reconstruir() {
+        logger.info("Reconstruindo resumo mensal a partir das transações...");
+        long inicio = System.nanoTime();
+        List<Long> usuarioIds = usuarioRepository.listarIds();
+        for (Long usuarioId : usuarioIds) {
+            transacaoPorUsuario.executeWithoutResult(status -> reconstruir(usuarioId));
+        }
+        logger.info("Resumo mensal reconstruído para {} usuários em {} ms",
+                usuarioIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    @Transactional
+    public void reconstruir(Long usuarioId) {
+        resumoMensalRepository.travarUsuarioParaReconstrucao(usuarioId);
+        resumoMensalRepository.limparUsuario(usuarioId);
+        resumoMensalRepository.reconstruirDeTransacoes(usuarioId);
+        resumoMensalRepository.reconstruirDeTransacoesCartao(usuarioId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirSeVazio() {
+        if (resumoMensalRepository.count() == 0) {
+            reconstruir();
+        }
+    }
+
+    private void acumular(Transacao transacao, BigDecimal sinal, Long quantidade) {
+        LocalDate mesReferencia = transacao.getData().withDayOfMonth(1);
+        resumoMensalRepository.acumular(
+                transacao.getUsuario().getId(),
+                mesReferencia,
+                transacao.getCategoria() != null ? transacao.getCategoria().getId() : ResumoMensal.SEM_REFERENCIA,
+                transacao.getTipo(),
+                transacao.getCarteiraOrigem().getId(),
+                transacao.getValor().multiply(sinal),
+                quantidade);
+    }
+
+    private void acumular(TransacaoCartaoCredito transacao, BigDecimal sinal, Long quantidade) {
+        Chave chave = Lote.chave(transacao);
+        resumoMensalRepository.acumular(
+                chave.getUsuarioId(),
+                chave.getMesReferencia(),
+                chave.getCategoriaId(),
+                chave.getTipo(),
+                chave.getCarteiraId(),
+                transacao.getValor().multiply(sinal),
+                quantidade);
+    }
+
+    /**
+     * Deltas do resumo mensal agrupados por chave, para gravações em lote.
+     * As chaves ficam na ordem do índice único, para que escritas concorrentes
+     * do mesmo usuário travem as linhas do resumo na mesma sequência.
+     */
+    public static class Lote {
+
+        private final Map<Chave, Delta> deltas = new TreeMap<>(Chave.ORDEM);
+
+        public void adicionar(Transacao transacao) {
+            Delta delta = deltas.computeIfAbsent(chave(transacao), c -> new Delta());
+            delta.total = delta.total.add(transacao.getValor());
+            delta.quantidade++;
+        }
+
+        public void estornar(Transacao transacao) {
+            Delta delta = deltas.computeIfAbsent(chave(transacao), c -> new Delta());
+            delta.total = delta.total.subtract(transacao.getValor());
+            delta.quantidade--;
+        }
+
+        public void adicionar(TransacaoCartaoCredito transacao) {
+            Delta delta = deltas.computeIfAbsent(chave(transacao), c -> new Delta());
+            delta.total = delta.total.add(transacao.getValor());
+            delta.quantidade++;
+        }
+
+        public void estornar(TransacaoCartaoCredito transacao) {
+            Delta delta = deltas.computeIfAbsent(chave(transacao), c -> new Delta());
+            delta.total = delta.total.subtract(transacao.getValor());
+            delta.quantidade--;
+        }
+
+        // Compras no cartão ficam no tipo CARTAO, sem carteira
+        private static Chave chave(TransacaoCartaoCredito transacao) {
+            return new Chave(
+                    transacao.getUsuario().getId(),
+                    transacao.getDataCompra().withDayOfMonth(1),
+                    transacao.getCategoria() != null ? transacao.getCategoria().getId() : ResumoMensal.SEM_REFERENCIA,
+                    "CARTAO",
+                    ResumoMensal.SEM_REFERENCIA);
+        }
+
+        private static Chave chave(Transacao transacao) {
+            return new Chave(
+                    transacao.getUsuario().getId(),
+                    transacao.getData().withDayOfMonth(1),
+                    transacao.getCategoria() != null ? transacao.getCategoria().getId() : ResumoMensal.SEM_REFERENCIA,
+                    transacao.getTipo(),
+                    transacao.getCarteiraOrigem().getId());
+        }
+    }
+
+    @Value
+    private static class Chave {
+        static final Comparator<Chave> ORDEM = Comparator.comparing(Chave::getUsuarioId)
+                .thenComparing(Chave::getMesReferencia)
+                .thenComparing(Chave::getCategoriaId)
+                .thenComparing(Chave::getTipo)
+                .thenComparing(Chave::getCarteiraId);
+
+        Long usuarioId;
+        LocalDate mesReferencia;
+        Long categoriaId;
+        String tipo;
+        Long carteiraId;
+    }
+
+    private static class Delta {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long quantidade;
+    }
+}
@@ -0,0 +1,118 @@
+package com.nanas.nanas.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Executa seções independentes de um relatório em paralelo, cada uma na sua
+ * transação de leitura. Uma seção que falha ou passa do timeout devolve o
+ * valor padrão informado e é registrada como indisponível; as demais seguem.
+ * O timeout conta do início da execução, não da entrada na fila, e também vale
+ * como timeout da transação: o Hibernate o aplica às consultas JDBC, e a seção
+ * abandonada para no banco em vez de segurar thread e conexão.
+ * Métricas: secoes.espera{relatorio, secao} (fila) e
+ * secoes.execucao{relatorio, secao, resultado=ok|falha|timeout}.
+ */
+@Component
+public class SecoesParalelas {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecoesParalelas.class);
+
+    private final Executor executor;
+    private final TransactionTemplate transacaoLeitura;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMillis;
+
+    public SecoesParalelas(@Qualifier("executorSecoes") Executor executor,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${relatorios.secoes.timeout-ms:5000}") long timeoutMillis) {
+        this.executor = executor;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        // Em segundos, arredondado para cima: nunca corta antes do prazo da seção
+        this.transacaoLeitura.setTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+        this.meterRegistry = meterRegistry;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Execucao iniciar(String relatorio) {
+        return new Execucao(relatorio);
+    }
+
+    /** Seções de uma mesma geração de relatório. */
+    public final class Execucao {
+
+        private final String relatorio;
+        private final Queue<String> indisponiveis = new ConcurrentLinkedQueue<>();
+
+        private Execucao(String relatorio) {
+            this.relatorio = relatorio;
+        }
+
+        /**
+         * O futuro nunca completa com erro: join() devolve o valor calculado
+         * ou seFalhar.
+         */
+        public <T> CompletableFuture<T> executar(String secao, Supplier<T> calculo, T seFalhar) {
+            long enfileirada = System.nanoTime();
+            AtomicLong inicio = new AtomicLong();
+            CompletableFuture<T> futuro = new CompletableFuture<>();
+            executor.execute(() -> {
+                inicio.set(System.nanoTime());
+                meterRegistry.timer("secoes.espera", "relatorio", relatorio, "secao", secao)
+                        .record(inicio.get() - enfileirada, TimeUnit.NANOSECONDS);
+                // O prazo começa aqui: o tempo na fila não conta contra a seção
+                futuro.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+                try {
+                    futuro.complete(transacaoLeitura.execute(status -> calculo.get()));
+                } catch (RuntimeException | Error e) {
+                    futuro.completeExceptionally(e);
+                }
+            });
+            return futuro.handle((valor, erro) -> {
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null
+                        ? erro.getCause() : erro;
+                String resultado = causa == null ? "ok" : causa instanceof TimeoutException ? "timeout" : "falha";
+                meterRegistry.timer("secoes.execucao",
+                        "relatorio", relatorio, "secao", secao, "resultado", resultado)
+                        .record(System.nanoTime() - inicio.get(), TimeUnit.NANOSECONDS);
+                if (causa == null) {
+                    return valor;
+                }
+                indisponiveis.add(secao);
+                if (causa instanceof TimeoutException) {
+                    logger.warn("Seção {} do relatório {} excedeu {} ms", secao, relatorio, timeoutMillis);
+                } else {
+                    logger.warn("Falha na seção {} do relatório {}", secao, relatorio, causa);
+                }
+                return seFalhar;
+            });
+        }
+
+        public boolean isIndisponivel(String secao) {
+            return indisponiveis.contains(secao);
+        }
+
+        public List<String> getIndisponiveis() {
+            return List.copyOf(indisponiveis);
+        }
+    }
+}
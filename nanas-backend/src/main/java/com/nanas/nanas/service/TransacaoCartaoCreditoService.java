@@ -1,6 +1,7 @@
 package com.nanas.nanas.service;
 
 import com.nanas.nanas.dto.TransacaoCartaoCreditoDTO;
+import com.nanas.nanas.event.TransacoesAlteradasEvent;
 import com.nanas.nanas.exception.ResourceNotFoundException;
 import com.nanas.nanas.mapper.TransacaoCartaoCreditoMapper;
 import com.nanas.nanas.model.CartaoCredito;
@@ -12,6 +13,7 @@ import com.nanas.nanas.repository.CategoriaRepository;
 import com.nanas.nanas.repository.TransacaoCartaoCreditoRepository;
 import com.nanas.nanas.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,18 +29,24 @@ public class TransacaoCartaoCreditoService {
     private final UsuarioRepository usuarioRepository;
     private final CategoriaRepository categoriaRepository;
     private final TransacaoCartaoCreditoMapper transacaoMapper;
+    private final ResumoMensalService resumoMensalService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public TransacaoCartaoCreditoService(TransacaoCartaoCreditoRepository transacaoRepository,
                                          CartaoCreditoRepository cartaoCreditoRepository,
                                          UsuarioRepository usuarioRepository,
                                          CategoriaRepository categoriaRepository,
-                                         TransacaoCartaoCreditoMapper transacaoMapper) {
+                                         TransacaoCartaoCreditoMapper transacaoMapper,
+                                         ResumoMensalService resumoMensalService,
+                                         ApplicationEventPublisher eventPublisher) {
         this.transacaoRepository = transacaoRepository;
         this.cartaoCreditoRepository = cartaoCreditoRepository;
         this.usuarioRepository = usuarioRepository;
         this.categoriaRepository = categoriaRepository;
         this.transacaoMapper = transacaoMapper;
+        this.resumoMensalService = resumoMensalService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -58,9 +66,48 @@ public class TransacaoCartaoCreditoService {
         transacao.setCategoria(categoria);
 
         TransacaoCartaoCredito transacaoSalva = transacaoRepository.save(transacao);
+        resumoMensalService.registrar(transacaoSalva);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(usuario.getId(), transacaoSalva.getDataCompra()));
         return transacaoMapper.toDTO(transacaoSalva);
     }
 
+    @Transactional
+    public TransacaoCartaoCreditoDTO update(Long transacaoId, TransacaoCartaoCreditoDTO dto) {
+        TransacaoCartaoCredito transacao = findTransacao(transacaoId, dto.getCartaoCreditoId(), dto.getUsuarioId());
+
+        // Estorno e novo registro vão juntos, com as chaves do resumo em ordem
+        // (ver ResumoMensalService.Lote)
+        ResumoMensalService.Lote resumo = new ResumoMensalService.Lote();
+        resumo.estornar(transacao);
+        LocalDate dataAnterior = transacao.getDataCompra();
+
+        Categoria categoria = null;
+        if (dto.getCategoriaId() != null) {
+            categoria = categoriaRepository.findById(dto.getCategoriaId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Categoria com ID " + dto.getCategoriaId() + " não encontrada."));
+        }
+
+        transacao.setDescricao(dto.getDescricao());
+        transacao.setValor(dto.getValor());
+        transacao.setDataCompra(dto.getDataCompra());
+        transacao.setCategoria(categoria);
+
+        TransacaoCartaoCredito transacaoSalva = transacaoRepository.save(transacao);
+        resumo.adicionar(transacaoSalva);
+        resumoMensalService.registrar(resumo);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(dto.getUsuarioId(), dataAnterior, transacaoSalva.getDataCompra()));
+        return transacaoMapper.toDTO(transacaoSalva);
+    }
+
+    @Transactional
+    public void delete(Long transacaoId, Long cartaoId, Long usuarioId) {
+        TransacaoCartaoCredito transacao = findTransacao(transacaoId, cartaoId, usuarioId);
+
+        resumoMensalService.estornar(transacao);
+        transacaoRepository.delete(transacao);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(usuarioId, transacao.getDataCompra()));
+    }
+
     @Transactional(readOnly = true)
     public List<TransacaoCartaoCreditoDTO> getByCartaoAndUsuario(Long cartaoId, Long usuarioId) {
         findUsuarioById(usuarioId);
@@ -118,6 +165,11 @@ public class TransacaoCartaoCreditoService {
                 .collect(Collectors.toList());
     }
 
+    private TransacaoCartaoCredito findTransacao(Long transacaoId, Long cartaoId, Long usuarioId) {
+        return transacaoRepository.findByIdAndCartaoCreditoIdAndUsuarioId(transacaoId, cartaoId, usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Transação com ID " + transacaoId + " não encontrada neste cartão."));
+    }
+
     private Usuario findUsuarioById(Long usuarioId) {
         return usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário com ID " + usuarioId + " não encontrado."));
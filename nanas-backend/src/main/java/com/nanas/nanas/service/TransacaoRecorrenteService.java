@@ -2,16 +2,17 @@ package com.nanas.nanas.service;
 
 import com.nanas.nanas.dto.TransacaoRecorrenteRequest;
 import com.nanas.nanas.dto.TransacaoRecorrenteResponse;
+import com.nanas.nanas.event.TransacoesAlteradasEvent;
 import com.nanas.nanas.exception.ResourceNotFoundException;
 import com.nanas.nanas.model.*;
 import com.nanas.nanas.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +24,10 @@ public class TransacaoRecorrenteService {
     private final CategoriaRepository categoriaRepository;
     private final TransacaoRepository transacaoRepository;
     private final MetaService metaService;
+    private final CarteiraService carteiraService;
+    private final ResumoMensalService resumoMensalService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersaoDadosService versaoDadosService;
 
     // CRIAR
     @Transactional
@@ -65,6 +70,7 @@ public class TransacaoRecorrenteService {
         tr.setCategoria(categoria);
 
         tr = transacaoRecorrenteRepository.save(tr);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(tr);
     }
@@ -72,27 +78,21 @@ public class TransacaoRecorrenteService {
     // LISTAR TODAS
     @Transactional(readOnly = true)
     public List<TransacaoRecorrenteResponse> listarTransacoesRecorrentes(Long usuarioId) {
-        usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        List<TransacaoRecorrente> transacoes = transacaoRecorrenteRepository.findByUsuarioId(usuarioId);
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResourceNotFoundException("Usuário não encontrado");
+        }
 
-        return transacoes.stream()
-                .map(this::converterParaResponse)
-                .collect(Collectors.toList());
+        return transacaoRecorrenteRepository.listarRespostasPorUsuario(usuarioId);
     }
 
     // LISTAR ATIVAS
     @Transactional(readOnly = true)
     public List<TransacaoRecorrenteResponse> listarTransacoesRecorrentesAtivas(Long usuarioId) {
-        usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        List<TransacaoRecorrente> transacoes = transacaoRecorrenteRepository.findByUsuarioIdAndAtivaTrue(usuarioId);
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResourceNotFoundException("Usuário não encontrado");
+        }
 
-        return transacoes.stream()
-                .map(this::converterParaResponse)
-                .collect(Collectors.toList());
+        return transacaoRecorrenteRepository.listarRespostasAtivasPorUsuario(usuarioId);
     }
 
     // BUSCAR POR ID
@@ -101,7 +101,7 @@ public class TransacaoRecorrenteService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        TransacaoRecorrente transacao = transacaoRecorrenteRepository.findById(id)
+        TransacaoRecorrente transacao = transacaoRecorrenteRepository.findComDetalhesById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transação recorrente não encontrada"));
 
         if (!transacao.getUsuario().getId().equals(usuario.getId())) {
@@ -155,6 +155,7 @@ public class TransacaoRecorrenteService {
         transacao.setProximaExecucao(calcularProximaExecucao(base, request.getFrequencia(), request.getDiaVencimento()));
 
         transacao = transacaoRecorrenteRepository.save(transacao);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(transacao);
     }
@@ -173,6 +174,7 @@ public class TransacaoRecorrenteService {
         }
 
         transacaoRecorrenteRepository.delete(transacao);
+        versaoDadosService.incrementar(usuarioId);
     }
 
     // ALTERAR STATUS
@@ -190,6 +192,7 @@ public class TransacaoRecorrenteService {
 
         transacao.setAtiva(ativa);
         transacao = transacaoRecorrenteRepository.save(transacao);
+        versaoDadosService.incrementar(usuarioId);
 
         return converterParaResponse(transacao);
     }
@@ -197,7 +200,7 @@ public class TransacaoRecorrenteService {
     // EXECUTAR (chamada por id, não precisa usuarioId)
     @Transactional
     public void executarTransacaoRecorrente(Long transacaoRecorrenteId) {
-        TransacaoRecorrente recorrente = transacaoRecorrenteRepository.findById(transacaoRecorrenteId)
+        TransacaoRecorrente recorrente = transacaoRecorrenteRepository.findComDetalhesById(transacaoRecorrenteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transação recorrente não encontrada"));
 
         if (!recorrente.getAtiva()) return;
@@ -220,14 +223,16 @@ public class TransacaoRecorrenteService {
         transacao.setCategoria(recorrente.getCategoria());
 
         transacaoRepository.save(transacao);
+        resumoMensalService.registrar(transacao);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(recorrente.getUsuario().getId(), hoje));
 
-        Carteira carteira = recorrente.getCarteira();
         if ("RECEITA".equals(recorrente.getTipo())) {
-            carteira.setSaldo(carteira.getSaldo().add(recorrente.getValor()));
+            carteiraService.atualizarSaldoCarteira(recorrente.getCarteira().getId(), recorrente.getValor(), true,
+                    hoje, transacao.getDescricao());
         } else if ("DESPESA".equals(recorrente.getTipo())) {
-            carteira.setSaldo(carteira.getSaldo().subtract(recorrente.getValor()));
+            carteiraService.atualizarSaldoCarteira(recorrente.getCarteira().getId(), recorrente.getValor(), false,
+                    hoje, transacao.getDescricao());
         }
-        carteiraRepository.save(carteira);
 
         if (recorrente.getCategoria() != null) {
             metaService.atualizarMetasAposTransacao(
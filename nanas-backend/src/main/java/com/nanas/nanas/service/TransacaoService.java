@@ -1,7 +1,9 @@
 package com.nanas.nanas.service;
 
+import com.nanas.nanas.dto.TransacaoPaginaResponse;
 import com.nanas.nanas.dto.TransacaoRequest;
 import com.nanas.nanas.dto.TransacaoResponse;
+import com.nanas.nanas.event.TransacoesAlteradasEvent;
 import com.nanas.nanas.model.Carteira;
 import com.nanas.nanas.model.Categoria;
 import com.nanas.nanas.model.Transacao;
@@ -11,15 +13,30 @@ import com.nanas.nanas.repository.CategoriaRepository;
 import com.nanas.nanas.repository.TransacaoRepository;
 import com.nanas.nanas.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,6 +57,17 @@ public class TransacaoService {
     @Autowired
     private CarteiraService carteiraService;
 
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
+    @Value("${transacoes.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_LOCAL_DATE;
 
     @Transactional
@@ -73,45 +101,200 @@ public class TransacaoService {
         transacao.setCategoria(categoria);
 
         if ("RECEITA".equals(request.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(carteiraOrigem.getId(), request.getValor(), true);
+            carteiraService.atualizarSaldoCarteira(carteiraOrigem.getId(), request.getValor(), true,
+                    transacao.getData(), transacao.getDescricao());
         } else if ("DESPESA".equals(request.getTipo())) {
-            if (carteiraOrigem.getSaldo().compareTo(request.getValor()) < 0) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saldo insuficiente na carteira de origem");
-            }
-            carteiraService.atualizarSaldoCarteira(carteiraOrigem.getId(), request.getValor(), false);
+            carteiraService.debitarSaldoCarteira(carteiraOrigem.getId(), request.getValor(),
+                    transacao.getData(), transacao.getDescricao());
         } else if ("TRANSFERENCIA".equals(request.getTipo())) {
             Carteira carteiraDestino = carteiraRepository.findById(request.getCarteiraDestinoId())
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carteira de destino não encontrada"));
             if (!carteiraDestino.getUsuario().getId().equals(usuarioId)) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado à carteira de destino");
             }
-            if (carteiraOrigem.getSaldo().compareTo(request.getValor()) < 0) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saldo insuficiente na carteira de origem para transferência");
-            }
-            carteiraService.transferirEntreCarteiras(usuarioId, carteiraOrigem.getId(), carteiraDestino.getId(), request.getValor(), request.getDescricao());
+            carteiraService.transferirEntreCarteiras(usuarioId, carteiraOrigem.getId(), carteiraDestino.getId(),
+                    request.getValor(), request.getDescricao(), transacao.getData());
             transacao.setCarteiraDestino(carteiraDestino);
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de transação inválido");
         }
 
         transacao = transacaoRepository.save(transacao);
+        resumoMensalService.registrar(transacao);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(usuarioId, transacao.getData()));
         return toTransacaoResponse(transacao);
     }
 
-    public List<TransacaoResponse> buscarTransacoesPorUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado"));
-        List<Transacao> transacoes = transacaoRepository.findByUsuarioOrderByDataDesc(usuario);
+    /**
+     * Cria as transações do lote de forma atômica, com as mesmas regras de
+     * criarTransacao aplicadas na ordem recebida. Carteiras e categorias são
+     * validadas com uma consulta cada, as inserções vão em batch JDBC e cada
+     * carteira recebe um movimento por data no diário.
+     */
+    @Transactional
+    public List<TransacaoResponse> criarTransacoesEmLote(Long usuarioId, List<TransacaoRequest> requests) {
+        if (requests.size() > tamanhoMaximoLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "O lote aceita no máximo " + tamanhoMaximoLote + " transações");
+        }
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado");
+        }
+        Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+
+        Set<Long> carteiraIds = new HashSet<>();
+        Set<Long> categoriaIds = new HashSet<>();
+        for (TransacaoRequest request : requests) {
+            carteiraIds.add(request.getCarteiraOrigemId());
+            if ("TRANSFERENCIA".equals(request.getTipo())) {
+                if (request.getCarteiraDestinoId() == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Carteira de destino é obrigatória para transferências");
+                }
+                carteiraIds.add(request.getCarteiraDestinoId());
+            }
+            if (request.getCategoriaId() != null) {
+                categoriaIds.add(request.getCategoriaId());
+            }
+        }
+
+        Map<Long, Carteira> carteiras = carteiraRepository.findByUsuarioIdAndIdIn(usuarioId, carteiraIds).stream()
+                .collect(Collectors.toMap(Carteira::getId, Function.identity()));
+        if (carteiras.size() != carteiraIds.size()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a uma das carteiras");
+        }
+        Map<Long, Categoria> categorias = categoriaIds.isEmpty()
+                ? Collections.emptyMap()
+                : categoriaRepository.findByUsuarioIdAndIdIn(usuarioId, categoriaIds).stream()
+                        .collect(Collectors.toMap(Categoria::getId, Function.identity()));
+        if (categorias.size() != categoriaIds.size()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a uma das categorias");
+        }
+
+        // Saldos simulados em memória para validar cada item na ordem do lote
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        carteiras.forEach((id, carteira) -> saldos.put(id, carteira.getSaldo()));
+        Map<Long, BigDecimal> deltas = new LinkedHashMap<>();
+        Map<Long, Map<LocalDate, BigDecimal>> movimentos = new LinkedHashMap<>();
+
+        List<Transacao> transacoes = new ArrayList<>(requests.size());
+        ResumoMensalService.Lote resumo = new ResumoMensalService.Lote();
+        for (int i = 0; i < requests.size(); i++) {
+            TransacaoRequest request = requests.get(i);
+            String posicao = "Transação " + (i + 1) + ": ";
+            Carteira carteiraOrigem = carteiras.get(request.getCarteiraOrigemId());
+
+            Transacao transacao = new Transacao();
+            transacao.setDescricao(request.getDescricao());
+            transacao.setValor(request.getValor());
+            transacao.setTipo(request.getTipo());
+            transacao.setData(LocalDate.parse(request.getData(), dateFormatter));
+            transacao.setUsuario(usuario);
+            transacao.setCarteiraOrigem(carteiraOrigem);
+            transacao.setCategoria(request.getCategoriaId() != null ? categorias.get(request.getCategoriaId()) : null);
+
+            if ("RECEITA".equals(request.getTipo())) {
+                movimentar(saldos, deltas, movimentos, carteiraOrigem.getId(), transacao.getData(), request.getValor());
+            } else if ("DESPESA".equals(request.getTipo())) {
+                if (saldos.get(carteiraOrigem.getId()).compareTo(request.getValor()) < 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, posicao + "Saldo insuficiente na carteira de origem");
+                }
+                movimentar(saldos, deltas, movimentos, carteiraOrigem.getId(), transacao.getData(), request.getValor().negate());
+            } else if ("TRANSFERENCIA".equals(request.getTipo())) {
+                Carteira carteiraDestino = carteiras.get(request.getCarteiraDestinoId());
+                if (saldos.get(carteiraOrigem.getId()).compareTo(request.getValor()) < 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            posicao + "Saldo insuficiente na carteira de origem para transferência");
+                }
+                movimentar(saldos, deltas, movimentos, carteiraOrigem.getId(), transacao.getData(), request.getValor().negate());
+                movimentar(saldos, deltas, movimentos, carteiraDestino.getId(), transacao.getData(), request.getValor());
+                transacao.setCarteiraDestino(carteiraDestino);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, posicao + "Tipo de transação inválido");
+            }
+
+            transacoes.add(transacao);
+            resumo.adicionar(transacao);
+        }
+
+        // Débitos líquidos são revalidados com as carteiras travadas (a validação acima
+        // usou saldos lidos no início), todas em um comando e antes de qualquer INSERT
+        Map<Long, BigDecimal> debitos = new HashMap<>();
+        deltas.forEach((carteiraId, delta) -> {
+            if (delta.signum() < 0) {
+                debitos.put(carteiraId, delta.negate());
+            }
+        });
+        if (!debitos.isEmpty()) {
+            carteiraService.garantirSaldos(debitos);
+        }
+        transacaoRepository.saveAll(transacoes);
+        // Um movimento por carteira e data, para manter os saldos históricos
+        movimentos.forEach((carteiraId, porData) -> porData.forEach((data, valor) -> {
+            if (valor.signum() != 0) {
+                carteiraService.atualizarSaldoCarteira(carteiraId, valor.abs(), valor.signum() > 0, data, "Lançamentos em lote");
+            }
+        }));
+        resumoMensalService.registrar(resumo);
+        eventPublisher.publishEvent(new TransacoesAlteradasEvent(usuarioId,
+                transacoes.stream().map(Transacao::getData).collect(Collectors.toList())));
+
         return transacoes.stream().map(this::toTransacaoResponse).collect(Collectors.toList());
     }
 
+    private void movimentar(Map<Long, BigDecimal> saldos, Map<Long, BigDecimal> deltas,
+                            Map<Long, Map<LocalDate, BigDecimal>> movimentos,
+                            Long carteiraId, LocalDate data, BigDecimal valor) {
+        saldos.merge(carteiraId, valor, BigDecimal::add);
+        deltas.merge(carteiraId, valor, BigDecimal::add);
+        movimentos.computeIfAbsent(carteiraId, id -> new TreeMap<>()).merge(data, valor, BigDecimal::add);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransacaoResponse> buscarTransacoesPorUsuario(Long usuarioId) {
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuário não encontrado");
+        }
+        // Projeção direta no DTO: sem entidades gerenciadas nem snapshots de dirty checking
+        return transacaoRepository.listarRespostasPorUsuario(usuarioId);
+    }
+
+    /**
+     * Lista as transações do usuário por keyset (data desc, id desc).
+     * O custo de cada página independe da profundidade no histórico.
+     */
+    @Transactional(readOnly = true)
+    public TransacaoPaginaResponse buscarPaginaTransacoes(Long usuarioId, String cursor, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        // Busca um item extra para saber se existe próxima página
+        Pageable pageable = PageRequest.of(0, tamanho + 1);
+
+        List<TransacaoResponse> transacoes;
+        if (cursor == null || cursor.isBlank()) {
+            transacoes = transacaoRepository.buscarPrimeiraPagina(usuarioId, pageable);
+        } else {
+            String[] partes = decodificarCursor(cursor);
+            transacoes = transacaoRepository.buscarPaginaApos(
+                    usuarioId, LocalDate.parse(partes[0], dateFormatter), Long.valueOf(partes[1]), pageable);
+        }
+
+        String nextCursor = null;
+        if (transacoes.size() > tamanho) {
+            transacoes = transacoes.subList(0, tamanho);
+            TransacaoResponse ultima = transacoes.get(tamanho - 1);
+            nextCursor = codificarCursor(ultima);
+        }
+
+        return new TransacaoPaginaResponse(transacoes, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
     public List<TransacaoResponse> buscarTodasTransacoes() {
-        List<Transacao> transacoes = transacaoRepository.findAll();
-        return transacoes.stream().map(this::toTransacaoResponse).collect(Collectors.toList());
+        return transacaoRepository.listarTodasRespostas();
     }
 
+    @Transactional(readOnly = true)
     public TransacaoResponse buscarTransacaoPorId(Long usuarioId, Long transacaoId) {
-        Transacao transacao = transacaoRepository.findById(transacaoId)
+        Transacao transacao = transacaoRepository.findComDetalhesById(transacaoId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Transação não encontrada"));
         if (!transacao.getUsuario().getId().equals(usuarioId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Acesso negado a esta transação");
@@ -129,6 +312,11 @@ public class TransacaoService {
         }
 
         reverterSaldoTransacao(transacaoExistente);
+        // Estorno e novo registro vão juntos no fim, depois das travas de carteira,
+        // com as chaves do resumo em ordem (ver ResumoMensalService.Lote)
+        ResumoMensalService.Lote resumo = new ResumoMensalService.Lote();
+        resumo.estornar(transacaoExistente);
+        LocalDate dataAnterior = transacaoExistente.getData();
 
         transacaoExistente.setDescricao(request.getDescricao());
         transacaoExistente.setValor(request.getValor());
@@ -155,6 +343,9 @@ public class TransacaoService {
         aplicarSaldoTransacao(transacaoExistente);
 
         transacaoExistente = transacaoRepository.save(transacaoExistente);
+        resumo.adicionar(transacaoExistente);
+        resumoMensalService.registrar(resumo);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(usuarioId, dataAnterior, transacaoExistente.getData()));
         return toTransacaoResponse(transacaoExistente);
     }
 
@@ -168,32 +359,57 @@ public class TransacaoService {
         }
 
         reverterSaldoTransacao(transacao);
+        resumoMensalService.estornar(transacao);
         transacaoRepository.delete(transacao);
+        eventPublisher.publishEvent(TransacoesAlteradasEvent.de(usuarioId, transacao.getData()));
     }
 
     private void reverterSaldoTransacao(Transacao transacao) {
+        String descricao = "Estorno: " + transacao.getDescricao();
         if ("RECEITA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false); 
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false, transacao.getData(), descricao);
         } else if ("DESPESA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true, transacao.getData(), descricao);
         } else if ("TRANSFERENCIA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true); 
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraDestino().getId(), transacao.getValor(), false); 
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true, transacao.getData(), descricao);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraDestino().getId(), transacao.getValor(), false, transacao.getData(), descricao);
         }
     }
 
     private void aplicarSaldoTransacao(Transacao transacao) {
+        String descricao = transacao.getDescricao();
         if ("RECEITA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), true, transacao.getData(), descricao);
         } else if ("DESPESA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false, transacao.getData(), descricao);
         } else if ("TRANSFERENCIA".equals(transacao.getTipo())) {
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false);
-            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraDestino().getId(), transacao.getValor(), true);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraOrigem().getId(), transacao.getValor(), false, transacao.getData(), descricao);
+            carteiraService.atualizarSaldoCarteira(transacao.getCarteiraDestino().getId(), transacao.getValor(), true, transacao.getData(), descricao);
+        }
+    }
+
+    private String codificarCursor(TransacaoResponse transacao) {
+        // A data da resposta já está em ISO_LOCAL_DATE
+        String valor = transacao.getData() + ":" + transacao.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException(valor);
+            }
+            LocalDate.parse(partes[0], dateFormatter);
+            Long.parseLong(partes[1]);
+            return partes;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido");
         }
     }
 
-    private TransacaoResponse toTransacaoResponse(Transacao transacao) {
+    TransacaoResponse toTransacaoResponse(Transacao transacao) {
         TransacaoResponse response = new TransacaoResponse();
         response.setId(transacao.getId());
         response.setDescricao(transacao.getDescricao());
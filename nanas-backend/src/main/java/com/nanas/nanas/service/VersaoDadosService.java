@@ -0,0 +1,159 @@
+package com.nanas.nanas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nanas.nanas.event.TransacoesAlteradasEvent;
+import com.nanas.nanas.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Versão dos dados de cada usuário, usada como ETag pelos endpoints de leitura.
+ * O contador fica em usuarios.versao_dados e é incrementado na mesma transação
+ * de cada escrita. A leitura passa por um cache curto: escritas desta instância
+ * o atualizam no commit; as de outra instância aparecem quando a entrada expira.
+ * <p>
+ * usuarios.versao_meses_fechados segue a mesma regra, mas só muda com escritas
+ * que podem alterar os números de um mês encerrado; o relatório mensal a usa
+ * para carimbar os snapshots desses meses.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersaoDadosService {
+
+    private final UsuarioRepository usuarioRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${versao-dados.cache.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
+
+    @Value("${versao-dados.cache.expiracao-segundos:5}")
+    private long expiracaoCacheSegundos;
+
+    private Cache<Long, Long> versoesPorUsuario;
+    private Cache<Long, Long> versoesMesesFechados;
+
+    @PostConstruct
+    void criarCache() {
+        versoesPorUsuario = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofSeconds(expiracaoCacheSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versoesPorUsuario, "versao_dados");
+        versoesMesesFechados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofSeconds(expiracaoCacheSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versoesMesesFechados, "versao_meses_fechados");
+    }
+
+    public long versaoAtual(Long usuarioId) {
+        Long versao = versoesPorUsuario.get(usuarioId,
+                id -> usuarioRepository.buscarVersaoDados(id).orElse(0L));
+        return versao != null ? versao : 0L;
+    }
+
+    /**
+     * Versão lida direto do banco, sem o cache, na transação corrente. Quem
+     * guarda um resultado calculado lê a versão antes das consultas e na mesma
+     * transação (mesmo servidor, primário ou réplica): os dados incluem ao menos
+     * as escritas até ela, mesmo com atraso de replicação.
+     */
+    public long lerVersaoDados(Long usuarioId) {
+        return usuarioRepository.buscarVersaoDados(usuarioId).orElse(0L);
+    }
+
+    public long versaoMesesFechadosAtual(Long usuarioId) {
+        Long versao = versoesMesesFechados.get(usuarioId,
+                id -> usuarioRepository.buscarVersaoMesesFechados(id).orElse(0L));
+        return versao != null ? versao : 0L;
+    }
+
+    // Mesma regra de lerVersaoDados, para os snapshots de meses encerrados
+    public long lerVersaoMesesFechados(Long usuarioId) {
+        return usuarioRepository.buscarVersaoMesesFechados(usuarioId).orElse(0L);
+    }
+
+    /**
+     * ETag fraca com usuário, versão e dia. O id evita que a entrada de outro
+     * usuário no mesmo navegador seja revalidada; o dia, porque dashboard e
+     * relatório do mês atual mudam com a data mesmo sem escrita nova.
+     */
+    public String etag(Long usuarioId) {
+        return "W/\"" + usuarioId + "-" + versaoAtual(usuarioId) + "-" + LocalDate.now() + "\"";
+    }
+
+    /**
+     * Incrementa a versão dentro da transação da escrita. Chamado ao fim dos
+     * métodos de escrita, depois das travas de carteira e do resumo mensal,
+     * para manter a mesma ordem de travas em todas as transações.
+     */
+    @Transactional
+    public void incrementar(Long usuarioId) {
+        usuarioRepository.incrementarVersaoDados(usuarioId);
+        long nova = usuarioRepository.buscarVersaoDados(usuarioId).orElse(0L);
+        aposCommit(() -> publicar(versoesPorUsuario, usuarioId, nova));
+    }
+
+    /**
+     * Como incrementar, para escritas que podem mudar um mês já encerrado
+     * (data retroativa, categoria renomeada ou removida).
+     */
+    @Transactional
+    public void incrementarComMesesFechados(Long usuarioId) {
+        usuarioRepository.incrementarVersaoDadosEMesesFechados(usuarioId);
+        long nova = usuarioRepository.buscarVersaoDados(usuarioId).orElse(0L);
+        long novaMesesFechados = usuarioRepository.buscarVersaoMesesFechados(usuarioId).orElse(0L);
+        aposCommit(() -> {
+            publicar(versoesPorUsuario, usuarioId, nova);
+            publicar(versoesMesesFechados, usuarioId, novaMesesFechados);
+        });
+    }
+
+    // Síncrono: roda na transação de quem gravou as transações
+    @EventListener
+    public void aoAlterarTransacoes(TransacoesAlteradasEvent evento) {
+        // No último dia do mês o mês corrente já conta: a transação pode
+        // confirmar depois da virada, quando o relatório já o trata como encerrado
+        YearMonth abertoAmanha = YearMonth.from(LocalDate.now().plusDays(1));
+        boolean afetaMesFechado = evento.getMeses().stream().anyMatch(mes -> mes.isBefore(abertoAmanha));
+        if (afetaMesFechado) {
+            incrementarComMesesFechados(evento.getUsuarioId());
+        } else {
+            incrementar(evento.getUsuarioId());
+        }
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    private static void publicar(Cache<Long, Long> cache, Long usuarioId, long versao) {
+        // Commits concorrentes podem chegar fora de ordem; a versão nunca volta
+        cache.asMap().merge(usuarioId, versao, Math::max);
+    }
+}
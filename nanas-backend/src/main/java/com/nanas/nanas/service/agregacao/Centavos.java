@@ -0,0 +1,26 @@
+package com.nanas.nanas.service.agregacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversão entre valores monetários (NUMERIC(19, 2) no banco) e centavos em long.
+ * As somas são feitas em centavos e o BigDecimal só volta na montagem do DTO.
+ */
+public final class Centavos {
+
+    private Centavos() {
+    }
+
+    /**
+     * Falha com ArithmeticException se o valor tiver mais de duas casas
+     * decimais ou não couber em long: nunca arredonda. Não passa por
+     * unscaledValue(), que criaria um BigInteger a cada valor somado.
+     */
+    public static long de(BigDecimal valor) {
+        return valor.movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal paraBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+}
@@ -0,0 +1,41 @@
+package com.nanas.nanas.service.agregacao;
+
+import java.math.BigDecimal;
+import java.util.stream.Collector;
+
+/**
+ * Acumulador mutável de valores monetários em centavos. Substitui
+ * reduce(BigDecimal.ZERO, BigDecimal::add), que aloca um BigDecimal por soma.
+ * Não é thread-safe.
+ */
+public final class SomaCentavos {
+
+    private long centavos;
+
+    public SomaCentavos adicionar(BigDecimal valor) {
+        centavos = Math.addExact(centavos, Centavos.de(valor));
+        return this;
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public BigDecimal total() {
+        return Centavos.paraBigDecimal(centavos);
+    }
+
+    /**
+     * Coletor para streams de valores: {@code stream.map(X::getValor).collect(SomaCentavos.somando())}.
+     */
+    public static Collector<BigDecimal, SomaCentavos, BigDecimal> somando() {
+        return Collector.of(
+                SomaCentavos::new,
+                SomaCentavos::adicionar,
+                (a, b) -> {
+                    a.centavos = Math.addExact(a.centavos, b.centavos);
+                    return a;
+                },
+                SomaCentavos::total);
+    }
+}
@@ -0,0 +1,118 @@
+package com.nanas.nanas.service.agregacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Somas em centavos indexadas por uma chave long (id de categoria, carteira...),
+ * sem boxing de chave nem de valor. Tabela de endereçamento aberto com sondagem
+ * linear; não há remoção. Não é thread-safe.
+ */
+public final class SomasPorChave {
+
+    @FunctionalInterface
+    public interface Consumidor {
+        void aceitar(long chave, long centavos);
+    }
+
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    private long[] chaves;
+    private long[] somas;
+    private boolean[] ocupadas;
+    private int tamanho;
+
+    public SomasPorChave() {
+        this(CAPACIDADE_MINIMA / 2);
+    }
+
+    public SomasPorChave(int chavesEsperadas) {
+        int capacidade = CAPACIDADE_MINIMA;
+        while (capacidade < chavesEsperadas * 2) {
+            capacidade <<= 1;
+        }
+        alocar(capacidade);
+    }
+
+    public void adicionar(long chave, BigDecimal valor) {
+        adicionarCentavos(chave, Centavos.de(valor));
+    }
+
+    public void adicionarCentavos(long chave, long centavos) {
+        int i = posicao(chave);
+        if (ocupadas[i]) {
+            somas[i] = Math.addExact(somas[i], centavos);
+            return;
+        }
+        ocupadas[i] = true;
+        chaves[i] = chave;
+        somas[i] = centavos;
+        // Carga máxima de 50%: mantém as sequências de sondagem curtas
+        if (++tamanho * 2 > chaves.length) {
+            redimensionar();
+        }
+    }
+
+    public boolean contem(long chave) {
+        return ocupadas[posicao(chave)];
+    }
+
+    /** Soma da chave em centavos; 0 se ela não recebeu valores. */
+    public long centavos(long chave) {
+        int i = posicao(chave);
+        return ocupadas[i] ? somas[i] : 0L;
+    }
+
+    public BigDecimal total(long chave) {
+        return Centavos.paraBigDecimal(centavos(chave));
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /** Percorre as chaves em ordem arbitrária. */
+    public void forEach(Consumidor consumidor) {
+        for (int i = 0; i < chaves.length; i++) {
+            if (ocupadas[i]) {
+                consumidor.aceitar(chaves[i], somas[i]);
+            }
+        }
+    }
+
+    private int posicao(long chave) {
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (ocupadas[i] && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    // Espalhamento multiplicativo: ids em sequência formariam blocos contíguos
+    // na tabela e alongariam a sondagem
+    private static int espalhar(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        somas = new long[capacidade];
+        ocupadas = new boolean[capacidade];
+    }
+
+    private void redimensionar() {
+        long[] chavesAnteriores = chaves;
+        long[] somasAnteriores = somas;
+        boolean[] ocupadasAnteriores = ocupadas;
+        alocar(chavesAnteriores.length * 2);
+        for (int i = 0; i < chavesAnteriores.length; i++) {
+            if (ocupadasAnteriores[i]) {
+                int j = posicao(chavesAnteriores[i]);
+                ocupadas[j] = true;
+                chaves[j] = chavesAnteriores[i];
+                somas[j] = somasAnteriores[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.nanas.nanas.service.importacao;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Conversão de datas e valores nos formatos usados por bancos brasileiros
+ * (dd/MM/yyyy, vírgula decimal) e pelo OFX (yyyyMMdd, ponto decimal).
+ */
+public final class ConversaoExtrato {
+
+    static final int TAMANHO_MAXIMO_DESCRICAO = 255;
+
+    private static final List<DateTimeFormatter> FORMATOS_DATA = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.BASIC_ISO_DATE);
+
+    private ConversaoExtrato() {
+    }
+
+    static LocalDate converterData(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new LinhaExtratoInvalidaException("Data ausente");
+        }
+        String data = texto.trim();
+        // DTPOSTED do OFX: yyyyMMddHHmmss[.XXX][-3:BRT]
+        if (data.length() > 8 && data.substring(0, 8).chars().allMatch(Character::isDigit)) {
+            data = data.substring(0, 8);
+        }
+        for (DateTimeFormatter formato : FORMATOS_DATA) {
+            try {
+                return LocalDate.parse(data, formato);
+            } catch (DateTimeParseException e) {
+                // tenta o próximo formato
+            }
+        }
+        throw new LinhaExtratoInvalidaException("Data inválida: " + texto);
+    }
+
+    static BigDecimal converterValor(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new LinhaExtratoInvalidaException("Valor ausente");
+        }
+        String valor = texto.replace("R$", "").replace(" ", "").replace("\u00A0", "").trim();
+        int ultimaVirgula = valor.lastIndexOf(',');
+        int ultimoPonto = valor.lastIndexOf('.');
+        if (ultimaVirgula > ultimoPonto) {
+            // 1.234,56 -> 1234.56
+            valor = valor.replace(".", "").replace(',', '.');
+        } else if (ultimaVirgula >= 0) {
+            // 1,234.56 -> 1234.56
+            valor = valor.replace(",", "");
+        }
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new LinhaExtratoInvalidaException("Valor inválido: " + texto);
+        }
+    }
+
+    static String limitarDescricao(String descricao) {
+        if (descricao == null) {
+            return null;
+        }
+        String texto = descricao.trim();
+        return texto.length() > TAMANHO_MAXIMO_DESCRICAO ? texto.substring(0, TAMANHO_MAXIMO_DESCRICAO) : texto;
+    }
+
+    /**
+     * Minúsculas e sem acentos, para casar cabeçalhos e nomes de categoria.
+     */
+    public static String normalizar(String texto) {
+        String semAcentos = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,155 @@
+package com.nanas.nanas.service.importacao;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Extrato CSV com cabeçalho. O separador (vírgula ou ponto e vírgula) é
+ * detectado no cabeçalho; as colunas data e valor são obrigatórias e
+ * descricao, categoria e tipo (RECEITA/DESPESA) são opcionais. Sem a
+ * coluna tipo, o sinal do valor define crédito ou débito.
+ * Campos entre aspas não podem conter quebras de linha.
+ */
+public class LeitorCsv implements LeitorExtrato {
+
+    private final BufferedReader reader;
+    private final char separador;
+    private final int colunaData;
+    private final int colunaValor;
+    private final int colunaDescricao;
+    private final int colunaCategoria;
+    private final int colunaTipo;
+    private int numeroLinha;
+
+    public LeitorCsv(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        String cabecalho = proximaLinhaNaoVazia();
+        if (cabecalho == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Arquivo CSV vazio");
+        }
+        if (cabecalho.startsWith("\uFEFF")) {
+            cabecalho = cabecalho.substring(1);
+        }
+        this.separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+
+        List<String> colunas = dividir(cabecalho);
+        this.colunaData = indiceDe(colunas, "data", "date", "data lancamento", "data movimento");
+        this.colunaValor = indiceDe(colunas, "valor", "value", "amount", "montante");
+        this.colunaDescricao = indiceDe(colunas, "descricao", "description", "historico", "lancamento", "memo");
+        this.colunaCategoria = indiceDe(colunas, "categoria", "category");
+        this.colunaTipo = indiceDe(colunas, "tipo", "type");
+
+        if (colunaData < 0 || colunaValor < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "O cabeçalho do CSV precisa das colunas data e valor");
+        }
+    }
+
+    @Override
+    public LinhaExtrato proxima() throws IOException {
+        String linha = proximaLinhaNaoVazia();
+        if (linha == null) {
+            return null;
+        }
+
+        List<String> campos = dividir(linha);
+        try {
+            BigDecimal valor = ConversaoExtrato.converterValor(campo(campos, colunaValor));
+            String tipo = campo(campos, colunaTipo);
+            if (tipo != null && !tipo.isBlank()) {
+                valor = aplicarTipo(valor, tipo.trim().toUpperCase(Locale.ROOT));
+            }
+            return new LinhaExtrato(
+                    ConversaoExtrato.converterData(campo(campos, colunaData)),
+                    ConversaoExtrato.limitarDescricao(campo(campos, colunaDescricao)),
+                    valor,
+                    campo(campos, colunaCategoria));
+        } catch (LinhaExtratoInvalidaException e) {
+            throw new LinhaExtratoInvalidaException("Linha " + numeroLinha + ": " + e.getMessage());
+        }
+    }
+
+    private BigDecimal aplicarTipo(BigDecimal valor, String tipo) {
+        switch (tipo) {
+            case "RECEITA":
+            case "CREDITO":
+            case "C":
+                return valor.abs();
+            case "DESPESA":
+            case "DEBITO":
+            case "D":
+                return valor.abs().negate();
+            default:
+                throw new LinhaExtratoInvalidaException("Tipo inválido: " + tipo);
+        }
+    }
+
+    private String proximaLinhaNaoVazia() throws IOException {
+        String linha;
+        while ((linha = reader.readLine()) != null) {
+            numeroLinha++;
+            if (!linha.isBlank()) {
+                return linha;
+            }
+        }
+        return null;
+    }
+
+    private List<String> dividir(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"') {
+                    if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private String campo(List<String> campos, int indice) {
+        if (indice < 0 || indice >= campos.size()) {
+            return null;
+        }
+        return campos.get(indice);
+    }
+
+    private int indiceDe(List<String> colunas, String... nomes) {
+        for (int i = 0; i < colunas.size(); i++) {
+            String coluna = ConversaoExtrato.normalizar(colunas.get(i)).replace('_', ' ');
+            for (String nome : nomes) {
+                if (coluna.equals(nome)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
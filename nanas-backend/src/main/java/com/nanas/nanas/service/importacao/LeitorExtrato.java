@@ -0,0 +1,16 @@
+package com.nanas.nanas.service.importacao;
+
+import java.io.IOException;
+
+/**
+ * Leitura incremental de um extrato: um lançamento por chamada,
+ * sem carregar o arquivo inteiro em memória.
+ */
+public interface LeitorExtrato {
+
+    /**
+     * @return o próximo lançamento ou null no fim do arquivo
+     * @throws LinhaExtratoInvalidaException se o lançamento atual for inválido
+     */
+    LinhaExtrato proxima() throws IOException;
+}
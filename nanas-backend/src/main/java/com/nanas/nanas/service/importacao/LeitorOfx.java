@@ -0,0 +1,118 @@
+package com.nanas.nanas.service.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Extrato OFX (1.x em SGML ou 2.x em XML). O arquivo é percorrido tag a tag
+ * e apenas os blocos STMTTRN são interpretados: DTPOSTED, TRNAMT e MEMO
+ * (ou NAME quando não há memo). O cabeçalho e as demais tags são ignorados.
+ */
+public class LeitorOfx implements LeitorExtrato {
+
+    // Limita o texto guardado por tag em arquivos malformados
+    private static final int TAMANHO_MAXIMO_TEXTO = 1024;
+    private static final int NENHUM = -2;
+
+    private final Reader reader;
+    private int devolvido = NENHUM;
+    private String texto;
+    private int numeroTransacao;
+
+    public LeitorOfx(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public LinhaExtrato proxima() throws IOException {
+        String tag;
+        while ((tag = proximaTag()) != null) {
+            if ("STMTTRN".equals(tag)) {
+                return lerTransacao();
+            }
+        }
+        return null;
+    }
+
+    private LinhaExtrato lerTransacao() throws IOException {
+        numeroTransacao++;
+        String data = null;
+        String valor = null;
+        String nome = null;
+        String memo = null;
+
+        String tag;
+        while ((tag = proximaTag()) != null && !"/STMTTRN".equals(tag)) {
+            switch (tag) {
+                case "DTPOSTED":
+                    data = texto;
+                    break;
+                case "TRNAMT":
+                    valor = texto;
+                    break;
+                case "NAME":
+                    nome = texto;
+                    break;
+                case "MEMO":
+                    memo = texto;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        try {
+            return new LinhaExtrato(
+                    ConversaoExtrato.converterData(data),
+                    ConversaoExtrato.limitarDescricao(memo != null && !memo.isEmpty() ? memo : nome),
+                    ConversaoExtrato.converterValor(valor),
+                    null);
+        } catch (LinhaExtratoInvalidaException e) {
+            throw new LinhaExtratoInvalidaException("Transação " + numeroTransacao + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Avança até a próxima tag e guarda em {@code texto} o conteúdo que a segue.
+     */
+    private String proximaTag() throws IOException {
+        int c;
+        do {
+            c = ler();
+        } while (c != -1 && c != '<');
+        if (c == -1) {
+            return null;
+        }
+
+        StringBuilder nome = new StringBuilder();
+        while ((c = ler()) != -1 && c != '>') {
+            if (nome.length() < TAMANHO_MAXIMO_TEXTO) {
+                nome.append((char) c);
+            }
+        }
+
+        StringBuilder conteudo = new StringBuilder();
+        while ((c = ler()) != -1 && c != '<') {
+            if (conteudo.length() < TAMANHO_MAXIMO_TEXTO) {
+                conteudo.append((char) c);
+            }
+        }
+        if (c == '<') {
+            devolvido = c;
+        }
+
+        texto = conteudo.toString().trim();
+        return nome.toString().trim().toUpperCase(Locale.ROOT);
+    }
+
+    private int ler() throws IOException {
+        if (devolvido != NENHUM) {
+            int c = devolvido;
+            devolvido = NENHUM;
+            return c;
+        }
+        return reader.read();
+    }
+}
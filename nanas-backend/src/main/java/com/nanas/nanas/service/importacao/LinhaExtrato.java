@@ -0,0 +1,20 @@
+package com.nanas.nanas.service.importacao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Lançamento lido de um extrato. O valor é positivo para créditos
+ * e negativo para débitos; categoria vem apenas de arquivos CSV.
+ */
+@Data
+@AllArgsConstructor
+public class LinhaExtrato {
+    private LocalDate data;
+    private String descricao;
+    private BigDecimal valor;
+    private String categoria;
+}
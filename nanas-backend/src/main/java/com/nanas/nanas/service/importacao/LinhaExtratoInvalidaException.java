@@ -0,0 +1,12 @@
+package com.nanas.nanas.service.importacao;
+
+/**
+ * Lançamento que não pôde ser interpretado. A leitura continua
+ * no lançamento seguinte; o importador apenas contabiliza o erro.
+ */
+public class LinhaExtratoInvalidaException extends RuntimeException {
+
+    public LinhaExtratoInvalidaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,112 @@
+-- ===========================================
+-- Esquema inicial (equivalente ao gerado pelo Hibernate com ddl-auto=update)
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id              BIGSERIAL PRIMARY KEY,
+    email           VARCHAR(255),
+    nome            VARCHAR(255),
+    firebase_uid    VARCHAR(255),
+    CONSTRAINT uk_usuarios_firebase_uid UNIQUE (firebase_uid)
+);
+
+CREATE TABLE IF NOT EXISTS carteiras (
+    id              BIGSERIAL PRIMARY KEY,
+    nome            VARCHAR(255),
+    saldo           NUMERIC(19, 2),
+    tipo            VARCHAR(255) NOT NULL,
+    usuario_id      BIGINT NOT NULL,
+    CONSTRAINT fk_carteiras_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE IF NOT EXISTS categorias (
+    id              BIGSERIAL PRIMARY KEY,
+    nome            VARCHAR(255),
+    usuario_id      BIGINT NOT NULL,
+    CONSTRAINT fk_categorias_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE IF NOT EXISTS cartoes_credito (
+    id              BIGSERIAL PRIMARY KEY,
+    nome            VARCHAR(255),
+    limite          NUMERIC(19, 2),
+    dia_fechamento  INTEGER,
+    dia_vencimento  INTEGER,
+    usuario_id      BIGINT NOT NULL,
+    CONSTRAINT fk_cartoes_credito_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE IF NOT EXISTS metas (
+    id              BIGSERIAL PRIMARY KEY,
+    nome            VARCHAR(255),
+    valor_meta      NUMERIC(19, 2),
+    valor_atual     NUMERIC(19, 2),
+    data_inicio     DATE,
+    data_fim        DATE,
+    periodo         VARCHAR(255),
+    ativa           BOOLEAN,
+    usuario_id      BIGINT NOT NULL,
+    categoria_id    BIGINT,
+    CONSTRAINT fk_metas_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_metas_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+);
+
+CREATE TABLE IF NOT EXISTS transacoes (
+    id                  BIGSERIAL PRIMARY KEY,
+    descricao           VARCHAR(255),
+    valor               NUMERIC(19, 2),
+    tipo                VARCHAR(255),
+    data                DATE,
+    usuario_id          BIGINT NOT NULL,
+    carteira_origem_id  BIGINT NOT NULL,
+    carteira_destino_id BIGINT,
+    categoria_id        BIGINT,
+    CONSTRAINT fk_transacoes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_transacoes_carteira_origem FOREIGN KEY (carteira_origem_id) REFERENCES carteiras (id),
+    CONSTRAINT fk_transacoes_carteira_destino FOREIGN KEY (carteira_destino_id) REFERENCES carteiras (id),
+    CONSTRAINT fk_transacoes_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+);
+
+CREATE TABLE IF NOT EXISTS transacoes_cartao_credito (
+    id                  BIGSERIAL PRIMARY KEY,
+    descricao           VARCHAR(255) NOT NULL,
+    valor               NUMERIC(10, 2) NOT NULL,
+    data_compra         DATE NOT NULL,
+    cartao_credito_id   BIGINT NOT NULL,
+    categoria_id        BIGINT,
+    usuario_id          BIGINT NOT NULL,
+    CONSTRAINT fk_transacoes_cartao_cartao FOREIGN KEY (cartao_credito_id) REFERENCES cartoes_credito (id),
+    CONSTRAINT fk_transacoes_cartao_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id),
+    CONSTRAINT fk_transacoes_cartao_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE IF NOT EXISTS transacoes_recorrentes (
+    id                  BIGSERIAL PRIMARY KEY,
+    descricao           VARCHAR(255),
+    valor               NUMERIC(19, 2),
+    tipo                VARCHAR(255),
+    frequencia          VARCHAR(255),
+    dia_vencimento      INTEGER,
+    data_inicio         DATE,
+    data_fim            DATE,
+    proxima_execucao    DATE,
+    ativa               BOOLEAN,
+    usuario_id          BIGINT NOT NULL,
+    carteira_id         BIGINT NOT NULL,
+    categoria_id        BIGINT,
+    CONSTRAINT fk_transacoes_recorrentes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_transacoes_recorrentes_carteira FOREIGN KEY (carteira_id) REFERENCES carteiras (id),
+    CONSTRAINT fk_transacoes_recorrentes_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+);
+
+CREATE TABLE IF NOT EXISTS resumo_mensal (
+    id              BIGSERIAL PRIMARY KEY,
+    usuario_id      BIGINT NOT NULL,
+    mes_referencia  DATE NOT NULL,
+    categoria_id    BIGINT NOT NULL,
+    tipo            VARCHAR(255) NOT NULL,
+    carteira_id     BIGINT NOT NULL,
+    total           NUMERIC(19, 2) NOT NULL,
+    quantidade      BIGINT NOT NULL,
+    CONSTRAINT uk_resumo_mensal_chave UNIQUE (usuario_id, mes_referencia, categoria_id, tipo, carteira_id)
+);
@@ -0,0 +1,56 @@
+-- ===========================================
+-- Índices compostos para as consultas dos repositórios
+-- ===========================================
+
+-- TransacaoRepository
+-- Listagem paginada (keyset), intervalos de data e somas por tipo/mês
+-- sem visitar a tabela (index-only scan)
+DROP INDEX IF EXISTS idx_transacoes_usuario_data_id;
+CREATE INDEX idx_transacoes_usuario_data_id
+    ON transacoes (usuario_id, data DESC, id DESC) INCLUDE (tipo, valor, categoria_id);
+
+-- findByUsuarioAndTipoAndDataBetween, findTop5ByUsuarioAndTipoAndDataBetweenOrderByValorDesc
+CREATE INDEX IF NOT EXISTS idx_transacoes_usuario_tipo_data
+    ON transacoes (usuario_id, tipo, data);
+
+-- findByUsuarioIdAndCategoria_IdAndDataBetween
+CREATE INDEX IF NOT EXISTS idx_transacoes_usuario_categoria_data
+    ON transacoes (usuario_id, categoria_id, data) INCLUDE (tipo, valor);
+
+-- findByUsuarioAndCarteiraOrigem/DestinoAndData[GreaterThanEqual]
+CREATE INDEX IF NOT EXISTS idx_transacoes_carteira_origem_data
+    ON transacoes (carteira_origem_id, data);
+CREATE INDEX IF NOT EXISTS idx_transacoes_carteira_destino_data
+    ON transacoes (carteira_destino_id, data) WHERE carteira_destino_id IS NOT NULL;
+
+-- TransacaoCartaoCreditoRepository
+-- findByCartaoCreditoIdAndUsuarioId, findAllByCartaoCreditoIdAndUsuarioIdAndDataCompraBetween
+CREATE INDEX IF NOT EXISTS idx_transacoes_cartao_cartao_usuario_data
+    ON transacoes_cartao_credito (cartao_credito_id, usuario_id, data_compra);
+
+-- streamByUsuarioId
+CREATE INDEX IF NOT EXISTS idx_transacoes_cartao_usuario_data
+    ON transacoes_cartao_credito (usuario_id, data_compra, id);
+
+-- MetaRepository
+-- findByUsuarioId, findByUsuarioIdAndCategoriaId
+CREATE INDEX IF NOT EXISTS idx_metas_usuario_categoria
+    ON metas (usuario_id, categoria_id);
+
+-- findByUsuarioIdAndAtivaTrue, findMetasAtivasNoPeriodo, findMetaAtivaPorCategoriaEPeriodo
+CREATE INDEX IF NOT EXISTS idx_metas_usuario_periodo_ativas
+    ON metas (usuario_id, data_inicio, data_fim) WHERE ativa = true;
+
+-- TransacaoRecorrenteRepository
+-- findTransacoesPendentesExecucao
+CREATE INDEX IF NOT EXISTS idx_transacoes_recorrentes_pendentes
+    ON transacoes_recorrentes (proxima_execucao) WHERE ativa = true;
+
+-- findByUsuarioId, findByUsuarioIdAndAtivaTrue, findTransacoesPendentesExecucaoPorUsuario
+CREATE INDEX IF NOT EXISTS idx_transacoes_recorrentes_usuario_ativa
+    ON transacoes_recorrentes (usuario_id, ativa, proxima_execucao);
+
+-- Listagens por usuário
+CREATE INDEX IF NOT EXISTS idx_carteiras_usuario ON carteiras (usuario_id);
+CREATE INDEX IF NOT EXISTS idx_categorias_usuario ON categorias (usuario_id);
+CREATE INDEX IF NOT EXISTS idx_cartoes_credito_usuario ON cartoes_credito (usuario_id);
@@ -0,0 +1,175 @@
+-- ===========================================
+-- Particionamento mensal de transacoes (data) e transacoes_cartao_credito (data_compra)
+-- A chave primária passa a incluir a coluna de partição; o id continua
+-- vindo da mesma sequência, então o mapeamento JPA não muda.
+-- ===========================================
+
+-- Cria a partição do mês se ainda não existir. Linhas desse mês que já
+-- caíram na partição padrão são movidas para ela: com elas lá, o PostgreSQL
+-- recusa o CREATE TABLE ... PARTITION OF.
+CREATE OR REPLACE FUNCTION criar_particao_mensal(tabela TEXT, mes DATE) RETURNS VOID AS $$
+DECLARE
+    inicio   DATE := date_trunc('month', mes)::date;
+    fim      DATE := (date_trunc('month', mes) + INTERVAL '1 month')::date;
+    particao TEXT := tabela || '_' || to_char(inicio, 'YYYY_MM');
+    padrao   TEXT := tabela || '_padrao';
+    coluna   TEXT;
+BEGIN
+    IF to_regclass(particao) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    coluna := CASE tabela
+                  WHEN 'transacoes' THEN 'data'
+                  WHEN 'transacoes_cartao_credito' THEN 'data_compra'
+              END;
+    IF coluna IS NULL THEN
+        RAISE EXCEPTION 'Tabela não particionada: %', tabela;
+    END IF;
+
+    -- A criação da partição já exige esta trava; obtê-la antes impede que uma
+    -- inserção concorrente ponha outra linha do mês na partição padrão
+    EXECUTE format('LOCK TABLE %I IN ACCESS EXCLUSIVE MODE', tabela);
+
+    IF to_regclass(padrao) IS NOT NULL THEN
+        EXECUTE format('CREATE TEMP TABLE particao_pendente ON COMMIT DROP AS '
+                       'SELECT * FROM %I WHERE %I >= %L AND %I < %L',
+                       padrao, coluna, inicio, coluna, fim);
+        EXECUTE format('DELETE FROM %I WHERE %I >= %L AND %I < %L', padrao, coluna, inicio, coluna, fim);
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   particao, tabela, inicio, fim);
+
+    IF to_regclass(padrao) IS NOT NULL THEN
+        EXECUTE format('INSERT INTO %I SELECT * FROM particao_pendente', tabela);
+        DROP TABLE particao_pendente;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- -------------------------------------------
+-- transacoes
+-- -------------------------------------------
+-- data passa a ser NOT NULL (faz parte da chave); transações sem data precisam
+-- ser corrigidas antes, em vez de receberem uma data inventada
+DO $$
+DECLARE
+    sem_data BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO sem_data FROM transacoes WHERE data IS NULL;
+    IF sem_data > 0 THEN
+        RAISE EXCEPTION '% transações sem data; preencha transacoes.data antes de particionar', sem_data;
+    END IF;
+END $$;
+
+ALTER TABLE transacoes RENAME TO transacoes_legado;
+ALTER TABLE transacoes_legado RENAME CONSTRAINT transacoes_pkey TO transacoes_legado_pkey;
+DROP INDEX IF EXISTS idx_transacoes_usuario_data_id;
+DROP INDEX IF EXISTS idx_transacoes_usuario_tipo_data;
+DROP INDEX IF EXISTS idx_transacoes_usuario_categoria_data;
+DROP INDEX IF EXISTS idx_transacoes_carteira_origem_data;
+DROP INDEX IF EXISTS idx_transacoes_carteira_destino_data;
+
+CREATE TABLE transacoes (
+    id                  BIGINT NOT NULL DEFAULT nextval('transacoes_id_seq'),
+    descricao           VARCHAR(255),
+    valor               NUMERIC(19, 2),
+    tipo                VARCHAR(255),
+    data                DATE NOT NULL,
+    usuario_id          BIGINT NOT NULL,
+    carteira_origem_id  BIGINT NOT NULL,
+    carteira_destino_id BIGINT,
+    categoria_id        BIGINT,
+    CONSTRAINT transacoes_pkey PRIMARY KEY (id, data),
+    CONSTRAINT fk_transacoes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_transacoes_carteira_origem FOREIGN KEY (carteira_origem_id) REFERENCES carteiras (id),
+    CONSTRAINT fk_transacoes_carteira_destino FOREIGN KEY (carteira_destino_id) REFERENCES carteiras (id),
+    CONSTRAINT fk_transacoes_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id)
+) PARTITION BY RANGE (data);
+
+ALTER SEQUENCE transacoes_id_seq OWNED BY transacoes.id;
+
+-- Recebe datas fora das partições criadas; a manutenção mantém meses futuros prontos
+CREATE TABLE transacoes_padrao PARTITION OF transacoes DEFAULT;
+
+DO $$
+DECLARE
+    mes    DATE;
+    ultimo DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+BEGIN
+    mes := COALESCE((SELECT date_trunc('month', MIN(data))::date FROM transacoes_legado),
+                    date_trunc('month', CURRENT_DATE)::date);
+    WHILE mes <= ultimo LOOP
+        PERFORM criar_particao_mensal('transacoes', mes);
+        mes := (mes + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO transacoes (id, descricao, valor, tipo, data, usuario_id, carteira_origem_id, carteira_destino_id, categoria_id)
+SELECT id, descricao, valor, tipo, data, usuario_id, carteira_origem_id, carteira_destino_id, categoria_id
+FROM transacoes_legado;
+
+DROP TABLE transacoes_legado;
+
+CREATE INDEX idx_transacoes_usuario_data_id
+    ON transacoes (usuario_id, data DESC, id DESC) INCLUDE (tipo, valor, categoria_id);
+CREATE INDEX idx_transacoes_usuario_tipo_data
+    ON transacoes (usuario_id, tipo, data);
+CREATE INDEX idx_transacoes_usuario_categoria_data
+    ON transacoes (usuario_id, categoria_id, data) INCLUDE (tipo, valor);
+CREATE INDEX idx_transacoes_carteira_origem_data
+    ON transacoes (carteira_origem_id, data);
+CREATE INDEX idx_transacoes_carteira_destino_data
+    ON transacoes (carteira_destino_id, data) WHERE carteira_destino_id IS NOT NULL;
+
+-- -------------------------------------------
+-- transacoes_cartao_credito
+-- -------------------------------------------
+ALTER TABLE transacoes_cartao_credito RENAME TO transacoes_cartao_credito_legado;
+ALTER TABLE transacoes_cartao_credito_legado
+    RENAME CONSTRAINT transacoes_cartao_credito_pkey TO transacoes_cartao_credito_legado_pkey;
+DROP INDEX IF EXISTS idx_transacoes_cartao_cartao_usuario_data;
+DROP INDEX IF EXISTS idx_transacoes_cartao_usuario_data;
+
+CREATE TABLE transacoes_cartao_credito (
+    id                  BIGINT NOT NULL DEFAULT nextval('transacoes_cartao_credito_id_seq'),
+    descricao           VARCHAR(255) NOT NULL,
+    valor               NUMERIC(10, 2) NOT NULL,
+    data_compra         DATE NOT NULL,
+    cartao_credito_id   BIGINT NOT NULL,
+    categoria_id        BIGINT,
+    usuario_id          BIGINT NOT NULL,
+    CONSTRAINT transacoes_cartao_credito_pkey PRIMARY KEY (id, data_compra),
+    CONSTRAINT fk_transacoes_cartao_cartao FOREIGN KEY (cartao_credito_id) REFERENCES cartoes_credito (id),
+    CONSTRAINT fk_transacoes_cartao_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id),
+    CONSTRAINT fk_transacoes_cartao_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) PARTITION BY RANGE (data_compra);
+
+ALTER SEQUENCE transacoes_cartao_credito_id_seq OWNED BY transacoes_cartao_credito.id;
+
+CREATE TABLE transacoes_cartao_credito_padrao PARTITION OF transacoes_cartao_credito DEFAULT;
+
+DO $$
+DECLARE
+    mes    DATE;
+    ultimo DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+BEGIN
+    mes := COALESCE((SELECT date_trunc('month', MIN(data_compra))::date FROM transacoes_cartao_credito_legado),
+                    date_trunc('month', CURRENT_DATE)::date);
+    WHILE mes <= ultimo LOOP
+        PERFORM criar_particao_mensal('transacoes_cartao_credito', mes);
+        mes := (mes + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO transacoes_cartao_credito (id, descricao, valor, data_compra, cartao_credito_id, categoria_id, usuario_id)
+SELECT id, descricao, valor, data_compra, cartao_credito_id, categoria_id, usuario_id
+FROM transacoes_cartao_credito_legado;
+
+DROP TABLE transacoes_cartao_credito_legado;
+
+CREATE INDEX idx_transacoes_cartao_cartao_usuario_data
+    ON transacoes_cartao_credito (cartao_credito_id, usuario_id, data_compra);
+CREATE INDEX idx_transacoes_cartao_usuario_data
+    ON transacoes_cartao_credito (usuario_id, data_compra, id);
@@ -0,0 +1,11 @@
+-- ===========================================
+-- Sequências com incremento 50 para as entidades gravadas em lote
+-- O Hibernate (optimizer pooled, allocationSize = 50) reserva um bloco de ids
+-- por nextval e deixa de depender do IDENTITY, que desativa o batch JDBC.
+-- Inserções nativas continuam usando o DEFAULT nextval das colunas.
+-- ===========================================
+
+ALTER SEQUENCE transacoes_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transacoes_cartao_credito_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transacoes_recorrentes_id_seq INCREMENT BY 50;
+ALTER SEQUENCE metas_id_seq INCREMENT BY 50;
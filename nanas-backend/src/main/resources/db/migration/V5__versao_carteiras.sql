@@ -0,0 +1,7 @@
+-- ===========================================
+-- Versão para lock otimista em carteiras
+-- Desde o diário de movimentos (V6) o saldo não passa por esta linha: a
+-- versão só detecta duas edições concorrentes da própria carteira.
+-- ===========================================
+
+ALTER TABLE carteiras ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,88 @@
+-- ===========================================
+-- Diário de movimentos por carteira (somente inserção) e checkpoints
+-- Saldo atual = último checkpoint + movimentos com id posterior a ele.
+-- Saldo em uma data = saldo atual - movimentos com data posterior.
+-- A coluna carteiras.saldo deixa de existir; o mapeamento JPA usa saldo_carteira(id).
+-- ===========================================
+
+CREATE TABLE movimentos_carteira (
+    id              BIGSERIAL PRIMARY KEY,
+    carteira_id     BIGINT NOT NULL,
+    data            DATE NOT NULL,
+    valor           NUMERIC(19, 2) NOT NULL,
+    descricao       VARCHAR(255),
+    criado_em       TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT fk_movimentos_carteira_carteira FOREIGN KEY (carteira_id) REFERENCES carteiras (id) ON DELETE CASCADE
+);
+
+-- Cauda após o checkpoint e somas por período
+CREATE INDEX idx_movimentos_carteira_carteira_id
+    ON movimentos_carteira (carteira_id, id) INCLUDE (valor);
+CREATE INDEX idx_movimentos_carteira_carteira_data
+    ON movimentos_carteira (carteira_id, data) INCLUDE (valor);
+
+CREATE TABLE checkpoints_carteira (
+    id                  BIGSERIAL PRIMARY KEY,
+    carteira_id         BIGINT NOT NULL,
+    ultimo_movimento_id BIGINT NOT NULL,
+    saldo               NUMERIC(19, 2) NOT NULL,
+    criado_em           TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT fk_checkpoints_carteira_carteira FOREIGN KEY (carteira_id) REFERENCES carteiras (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_checkpoints_carteira_carteira_ultimo
+    ON checkpoints_carteira (carteira_id, ultimo_movimento_id DESC) INCLUDE (saldo);
+
+CREATE OR REPLACE FUNCTION saldo_carteira(p_carteira_id BIGINT) RETURNS NUMERIC AS $$
+    SELECT COALESCE(k.saldo, 0) + COALESCE((
+               SELECT SUM(m.valor) FROM movimentos_carteira m
+               WHERE m.carteira_id = p_carteira_id AND m.id > COALESCE(k.ultimo_movimento_id, 0)), 0)
+    FROM (SELECT 1) AS base
+    LEFT JOIN LATERAL (
+        SELECT c.saldo, c.ultimo_movimento_id FROM checkpoints_carteira c
+        WHERE c.carteira_id = p_carteira_id
+        ORDER BY c.ultimo_movimento_id DESC
+        LIMIT 1) k ON true
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION saldo_carteira_em(p_carteira_id BIGINT, p_data DATE) RETURNS NUMERIC AS $$
+    SELECT saldo_carteira(p_carteira_id) - COALESCE((
+               SELECT SUM(m.valor) FROM movimentos_carteira m
+               WHERE m.carteira_id = p_carteira_id AND m.data > p_data), 0)
+$$ LANGUAGE sql STABLE;
+
+-- -------------------------------------------
+-- Histórico: movimentos derivados das transações existentes
+-- -------------------------------------------
+CREATE TEMPORARY TABLE movimentos_legado ON COMMIT DROP AS
+SELECT carteira_origem_id AS carteira_id, data,
+       CASE WHEN tipo = 'RECEITA' THEN valor ELSE -valor END AS valor,
+       descricao, id AS transacao_id
+FROM transacoes
+WHERE tipo IN ('RECEITA', 'DESPESA', 'TRANSFERENCIA') AND valor IS NOT NULL
+UNION ALL
+SELECT carteira_destino_id, data, valor, descricao, id
+FROM transacoes
+WHERE tipo = 'TRANSFERENCIA' AND carteira_destino_id IS NOT NULL AND valor IS NOT NULL;
+
+-- Abertura: diferença entre o saldo gravado e o que as transações explicam
+INSERT INTO movimentos_carteira (carteira_id, data, valor, descricao)
+SELECT c.id,
+       COALESCE((SELECT MIN(l.data) FROM movimentos_legado l WHERE l.carteira_id = c.id), CURRENT_DATE),
+       COALESCE(c.saldo, 0) - COALESCE((SELECT SUM(l.valor) FROM movimentos_legado l WHERE l.carteira_id = c.id), 0),
+       'Saldo de abertura'
+FROM carteiras c
+ORDER BY c.id;
+
+INSERT INTO movimentos_carteira (carteira_id, data, valor, descricao)
+SELECT carteira_id, data, valor, descricao
+FROM movimentos_legado
+ORDER BY data, transacao_id;
+
+INSERT INTO checkpoints_carteira (carteira_id, ultimo_movimento_id, saldo)
+SELECT c.id,
+       COALESCE((SELECT MAX(m.id) FROM movimentos_carteira m WHERE m.carteira_id = c.id), 0),
+       COALESCE(c.saldo, 0)
+FROM carteiras c;
+
+ALTER TABLE carteiras DROP COLUMN saldo;
@@ -0,0 +1,7 @@
+-- ===========================================
+-- Versão dos dados do usuário (ETag dos endpoints de leitura)
+-- Incrementada na mesma transação de toda escrita em carteiras, categorias,
+-- metas, transações, recorrências e cartões do usuário.
+-- ===========================================
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS versao_dados BIGINT NOT NULL DEFAULT 0;
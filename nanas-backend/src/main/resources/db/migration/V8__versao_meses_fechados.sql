@@ -0,0 +1,7 @@
+-- ===========================================
+-- Versão dos meses encerrados do usuário (cache do relatório mensal)
+-- Incrementada junto com versao_dados quando a escrita pode mudar os números
+-- de um mês já encerrado: transação retroativa, categoria renomeada ou removida.
+-- ===========================================
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS versao_meses_fechados BIGINT NOT NULL DEFAULT 0;
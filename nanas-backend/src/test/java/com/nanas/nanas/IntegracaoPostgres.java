@@ -0,0 +1,67 @@
+package com.nanas.nanas;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.nanas.nanas.config.AquecimentoChavesFirebase;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base dos testes que precisam do PostgreSQL de verdade (particionamento,
+ * travas de linha, planos de execução). O esquema vem das migrações do Flyway.
+ * <p>
+ * Sobe um container postgres:13 quando há Docker. Sem Docker, NANAS_TESTE_DB_URL
+ * (com NANAS_TESTE_DB_USUARIO e NANAS_TESTE_DB_SENHA) aponta para um banco
+ * descartável; sem nenhum dos dois, os testes são ignorados.
+ */
+@SpringBootTest
+public abstract class IntegracaoPostgres {
+
+    private static final String URL_EXTERNA = System.getenv("NANAS_TESTE_DB_URL");
+
+    // Um container para todas as classes de teste; o Testcontainers o remove no fim
+    private static PostgreSQLContainer<?> postgres;
+
+    // Os testes não validam ID tokens
+    @MockBean
+    protected FirebaseApp firebaseApp;
+
+    @MockBean
+    protected FirebaseAuth firebaseAuth;
+
+    @MockBean
+    protected AquecimentoChavesFirebase aquecimentoChavesFirebase;
+
+    @BeforeAll
+    static void exigirBanco() {
+        Assumptions.assumeTrue(URL_EXTERNA != null || DockerClientFactory.instance().isDockerAvailable(),
+                "Sem Docker e sem NANAS_TESTE_DB_URL");
+    }
+
+    @DynamicPropertySource
+    static void configurarBanco(DynamicPropertyRegistry registry) {
+        if (URL_EXTERNA != null) {
+            registry.add("spring.datasource.url", () -> URL_EXTERNA);
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("NANAS_TESTE_DB_USUARIO", "nanas_user"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("NANAS_TESTE_DB_SENHA", "nanas_password"));
+            return;
+        }
+        registry.add("spring.datasource.url", () -> container().getJdbcUrl());
+        registry.add("spring.datasource.username", () -> container().getUsername());
+        registry.add("spring.datasource.password", () -> container().getPassword());
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+}
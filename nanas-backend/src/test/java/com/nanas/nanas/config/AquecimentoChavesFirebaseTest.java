@@ -0,0 +1,166 @@
+package com.nanas.nanas.config;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O Admin SDK busca os certificados pelo HttpTransport das FirebaseOptions;
+ * aqui ele serve um certificado local, e os tokens são assinados com a chave
+ * correspondente (src/test/resources/firebase).
+ */
+class AquecimentoChavesFirebaseTest {
+
+    private static final String PROJETO = "nanas-teste";
+    private static final String KID = "chave-teste";
+
+    private FirebaseApp app;
+
+    @AfterEach
+    void removerApp() {
+        if (app != null) {
+            app.delete();
+        }
+    }
+
+    @Test
+    void aquecimentoCarregaAsChavesAntesDaPrimeiraRequisicao() throws Exception {
+        TransporteCertificados transporte = new TransporteCertificados(200, 3600);
+        AquecimentoChavesFirebase aquecimento = criarAquecimento(transporte);
+
+        aquecimento.aquecer();
+        assertThat(transporte.buscas.get()).isEqualTo(1);
+
+        FirebaseToken token = FirebaseAuth.getInstance(app).verifyIdToken(tokenAssinado("usuario-1"));
+
+        assertThat(token.getUid()).isEqualTo("usuario-1");
+        // A verificação da requisição usou as chaves já carregadas
+        assertThat(transporte.buscas.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sondagemNaoBuscaDeNovoChavesAindaValidas() {
+        TransporteCertificados transporte = new TransporteCertificados(200, 3600);
+        AquecimentoChavesFirebase aquecimento = criarAquecimento(transporte);
+
+        assertThat(aquecimento.atualizarChaves()).isTrue();
+        assertThat(aquecimento.atualizarChaves()).isTrue();
+
+        assertThat(transporte.buscas.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sondagemRenovaChavesPertoDeExpirar() throws Exception {
+        // max-age abaixo da antecedência de 5 min do SDK: toda sondagem renova
+        TransporteCertificados transporte = new TransporteCertificados(200, 120);
+        AquecimentoChavesFirebase aquecimento = criarAquecimento(transporte);
+
+        assertThat(aquecimento.atualizarChaves()).isTrue();
+        assertThat(aquecimento.atualizarChaves()).isTrue();
+
+        assertThat(transporte.buscas.get()).isEqualTo(2);
+    }
+
+    @Test
+    void falhaNaBuscaEhInformadaSemLancar() {
+        TransporteCertificados transporte = new TransporteCertificados(503, 0);
+        AquecimentoChavesFirebase aquecimento = criarAquecimento(transporte);
+
+        assertThat(aquecimento.atualizarChaves()).isFalse();
+        assertThat(transporte.buscas.get()).isGreaterThanOrEqualTo(1);
+    }
+
+    private AquecimentoChavesFirebase criarAquecimento(TransporteCertificados transporte) {
+        FirebaseOptions options = FirebaseOptions.builder()
+                .setCredentials(GoogleCredentials.create(new AccessToken("teste", null)))
+                .setProjectId(PROJETO)
+                .setHttpTransport(transporte)
+                .build();
+        app = FirebaseApp.initializeApp(options, "teste-" + UUID.randomUUID());
+        return new AquecimentoChavesFirebase(app, FirebaseAuth.getInstance(app));
+    }
+
+    private static String tokenAssinado(String uid) throws Exception {
+        long agora = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        String cabecalho = "{\"alg\":\"RS256\",\"kid\":\"" + KID + "\",\"typ\":\"JWT\"}";
+        String claims = "{\"aud\":\"" + PROJETO + "\""
+                + ",\"iss\":\"https://securetoken.google.com/" + PROJETO + "\""
+                + ",\"sub\":\"" + uid + "\""
+                + ",\"auth_time\":" + (agora - 60)
+                + ",\"iat\":" + (agora - 60)
+                + ",\"exp\":" + (agora + 3600) + "}";
+        String conteudo = base64Url(cabecalho.getBytes(StandardCharsets.UTF_8)) + "."
+                + base64Url(claims.getBytes(StandardCharsets.UTF_8));
+
+        Signature assinatura = Signature.getInstance("SHA256withRSA");
+        assinatura.initSign(chavePrivada());
+        assinatura.update(conteudo.getBytes(StandardCharsets.US_ASCII));
+        return conteudo + "." + base64Url(assinatura.sign());
+    }
+
+    private static PrivateKey chavePrivada() throws Exception {
+        String pem = lerRecurso("/firebase/chave-teste.pem")
+                .replaceAll("-----[A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+    }
+
+    private static String lerRecurso(String caminho) throws IOException {
+        try (InputStream in = AquecimentoChavesFirebaseTest.class.getResourceAsStream(caminho)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /** Serve {kid: certificado PEM} como o endpoint do Google e conta as buscas. */
+    private static final class TransporteCertificados extends MockHttpTransport {
+
+        private final AtomicInteger buscas = new AtomicInteger();
+        private final int status;
+        private final long maxAgeSegundos;
+
+        private TransporteCertificados(int status, long maxAgeSegundos) {
+            this.status = status;
+            this.maxAgeSegundos = maxAgeSegundos;
+        }
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+            buscas.incrementAndGet();
+            String certificado = lerRecurso("/firebase/certificado-teste.pem")
+                    .replace("\\", "\\\\").replace("\n", "\\n");
+            MockLowLevelHttpResponse resposta = new MockLowLevelHttpResponse()
+                    .setStatusCode(status)
+                    .setContentType("application/json; charset=UTF-8")
+                    .setContent("{\"" + KID + "\":\"" + certificado + "\"}")
+                    .addHeader("Cache-Control", "public, max-age=" + maxAgeSegundos);
+            return new MockLowLevelHttpRequest(url).setResponse(resposta);
+        }
+    }
+}
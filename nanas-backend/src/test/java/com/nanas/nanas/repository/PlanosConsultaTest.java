@@ -0,0 +1,223 @@
+package com.nanas.nanas.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nanas.nanas.IntegracaoPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confere, com EXPLAIN, que as consultas dos repositórios usam os índices da
+ * V2/V3. O SQL reproduz o que o Hibernate gera para cada método.
+ * <p>
+ * A massa tem a distribuição de produção (muitos usuários, anos de
+ * lançamentos, metas quase todas encerradas), mas é pequena: nesse tamanho o
+ * planejador prefere seq scan mesmo com o índice certo, por isso ele fica
+ * desabilitado na transação do teste. Um seq scan que ainda apareça indica consulta sem
+ * índice utilizável. Índices de partição contam como o índice da tabela pai.
+ */
+@Transactional
+class PlanosConsultaTest extends IntegracaoPostgres {
+
+    private static final LocalDate HOJE = LocalDate.now();
+    private static final int USUARIOS = 30;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private long usuarioId;
+    private long carteiraId;
+    private long outraCarteiraId;
+    private long categoriaId;
+    private long cartaoId;
+
+    @BeforeEach
+    void criarMassa() {
+        // Vários usuários com a mesma distribuição, para que o filtro por usuário
+        // seja seletivo como em produção; o usuário das consultas é o primeiro
+        String prefixo = "plano-" + System.nanoTime() + "-";
+        jdbcTemplate.update("INSERT INTO usuarios (nome, firebase_uid) " +
+                "SELECT 'Plano', ? || g FROM generate_series(1, " + USUARIOS + ") g", prefixo);
+        String usuarios = "SELECT id FROM usuarios WHERE firebase_uid LIKE '" + prefixo + "%'";
+        usuarioId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM (" + usuarios + ") u", Long.class);
+
+        jdbcTemplate.update("INSERT INTO carteiras (nome, tipo, usuario_id) " +
+                "SELECT n, 'CONTA_CORRENTE', u.id FROM (" + usuarios + ") u CROSS JOIN (VALUES ('Conta'), ('Poupança')) c(n)");
+        jdbcTemplate.update("INSERT INTO categorias (nome, usuario_id) SELECT 'Mercado', u.id FROM (" + usuarios + ") u");
+        jdbcTemplate.update("INSERT INTO cartoes_credito (nome, limite, dia_fechamento, dia_vencimento, usuario_id) " +
+                "SELECT 'Cartão', 1000, 1, 10, u.id FROM (" + usuarios + ") u");
+        carteiraId = idDoUsuario("SELECT MIN(id) FROM carteiras WHERE usuario_id = ?");
+        outraCarteiraId = idDoUsuario("SELECT MAX(id) FROM carteiras WHERE usuario_id = ?");
+        categoriaId = idDoUsuario("SELECT id FROM categorias WHERE usuario_id = ?");
+        cartaoId = idDoUsuario("SELECT id FROM cartoes_credito WHERE usuario_id = ?");
+
+        String dadosDoUsuario = "FROM (" + usuarios + ") u " +
+                "JOIN LATERAL (SELECT MIN(id) AS origem, MAX(id) AS destino FROM carteiras WHERE usuario_id = u.id) c ON true " +
+                "JOIN categorias cat ON cat.usuario_id = u.id " +
+                "JOIN cartoes_credito cc ON cc.usuario_id = u.id ";
+
+        // 1.500 transações por usuário em 400 dias: um terço de cada tipo
+        jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, tipo, data, usuario_id, carteira_origem_id, carteira_destino_id, categoria_id) " +
+                "SELECT 'T' || g, (g % 500) + 1, (ARRAY['RECEITA', 'DESPESA', 'TRANSFERENCIA'])[g % 3 + 1], " +
+                "       CAST(? AS date) - (g % 400), u.id, c.origem, " +
+                "       CASE WHEN g % 3 = 2 THEN c.destino END, CASE WHEN g % 3 = 1 THEN cat.id END " +
+                dadosDoUsuario + "CROSS JOIN generate_series(1, 1500) g", HOJE);
+        jdbcTemplate.update("INSERT INTO transacoes_cartao_credito (descricao, valor, data_compra, cartao_credito_id, categoria_id, usuario_id) " +
+                "SELECT 'C' || g, (g % 300) + 1, CAST(? AS date) - (g % 200), cc.id, cat.id, u.id " +
+                dadosDoUsuario + "CROSS JOIN generate_series(1, 500) g", HOJE);
+        // Metas de 30 dias em sequência, a maioria já encerrada e inativa
+        jdbcTemplate.update("INSERT INTO metas (nome, valor_meta, valor_atual, data_inicio, data_fim, periodo, ativa, usuario_id, categoria_id) " +
+                "SELECT 'M' || g, 1000, 0, CAST(? AS date) - g * 15, CAST(? AS date) - g * 15 + 30, 'MENSAL', g % 5 = 0, u.id, cat.id " +
+                dadosDoUsuario + "CROSS JOIN generate_series(0, 39) g", HOJE, HOJE);
+        jdbcTemplate.update("INSERT INTO transacoes_recorrentes (descricao, valor, tipo, frequencia, data_inicio, proxima_execucao, ativa, usuario_id, carteira_id) " +
+                "SELECT 'R' || g, 10, 'DESPESA', 'MENSAL', CAST(? AS date) - 365, CAST(? AS date) + (g % 60) - 30, g % 4 <> 0, u.id, c.origem " +
+                dadosDoUsuario + "CROSS JOIN generate_series(1, 20) g", HOJE, HOJE);
+
+        jdbcTemplate.execute("ANALYZE usuarios, carteiras, transacoes, transacoes_cartao_credito, metas, transacoes_recorrentes");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void listagemEPaginacaoDeTransacoes() {
+        // listarRespostasPorUsuario, buscarPrimeiraPagina
+        assertUsa("idx_transacoes_usuario_data_id",
+                "SELECT t.id FROM transacoes t WHERE t.usuario_id = " + usuarioId +
+                " ORDER BY t.data DESC, t.id DESC LIMIT 20");
+        // buscarPaginaApos
+        assertUsa("idx_transacoes_usuario_data_id",
+                "SELECT t.id FROM transacoes t WHERE t.usuario_id = " + usuarioId +
+                " AND (t.data < " + data(HOJE.minusDays(30)) + " OR (t.data = " + data(HOJE.minusDays(30)) + " AND t.id < 1000))" +
+                " ORDER BY t.data DESC, t.id DESC LIMIT 20");
+        // somarPorTipoEMes
+        assertUsa("idx_transacoes_usuario_data_id",
+                "SELECT t.tipo, SUM(t.valor) FROM transacoes t WHERE t.usuario_id = " + usuarioId +
+                " AND t.data BETWEEN " + data(HOJE.minusMonths(6)) + " AND " + data(HOJE) + " GROUP BY t.tipo");
+    }
+
+    @Test
+    void transacoesPorTipoCategoriaECarteira() {
+        // findByUsuarioAndTipoAndDataBetween, findTop5ByUsuarioAndTipoAndDataBetweenOrderByValorDesc
+        assertUsa("idx_transacoes_usuario_tipo_data",
+                "SELECT t.id FROM transacoes t WHERE t.usuario_id = " + usuarioId + " AND t.tipo = 'DESPESA'" +
+                " AND t.data BETWEEN " + data(HOJE.withDayOfMonth(1)) + " AND " + data(HOJE));
+        // somarPorCategoriaETipo (pontas de mês das metas)
+        assertUsa("idx_transacoes_usuario_categoria_data",
+                "SELECT SUM(t.valor) FROM transacoes t WHERE t.usuario_id = " + usuarioId + " AND t.categoria_id = " + categoriaId +
+                " AND t.tipo = 'DESPESA' AND t.data BETWEEN " + data(HOJE.withDayOfMonth(1)) + " AND " + data(HOJE));
+        // findByUsuarioAndCarteiraOrigemAndDataGreaterThanEqual
+        assertUsa("idx_transacoes_carteira_origem_data",
+                "SELECT t.id FROM transacoes t WHERE t.usuario_id = " + usuarioId + " AND t.carteira_origem_id = " + carteiraId +
+                " AND t.data >= " + data(HOJE.minusDays(10)));
+        // findByUsuarioAndCarteiraDestinoAndDataGreaterThanEqual
+        assertUsa("idx_transacoes_carteira_destino_data",
+                "SELECT t.id FROM transacoes t WHERE t.usuario_id = " + usuarioId + " AND t.carteira_destino_id = " + outraCarteiraId +
+                " AND t.data >= " + data(HOJE.minusDays(10)));
+    }
+
+    @Test
+    void transacoesDeCartao() {
+        // findAllByCartaoCreditoIdAndUsuarioIdAndDataCompraBetween
+        assertUsa("idx_transacoes_cartao_cartao_usuario_data",
+                "SELECT t.id FROM transacoes_cartao_credito t WHERE t.cartao_credito_id = " + cartaoId +
+                " AND t.usuario_id = " + usuarioId +
+                " AND t.data_compra BETWEEN " + data(HOJE.minusMonths(1)) + " AND " + data(HOJE));
+        // streamByUsuarioId (exportação)
+        assertUsa("idx_transacoes_cartao_usuario_data",
+                "SELECT t.id FROM transacoes_cartao_credito t WHERE t.usuario_id = " + usuarioId +
+                " ORDER BY t.data_compra, t.id");
+    }
+
+    @Test
+    void resumoMensal() {
+        // ResumoMensalRepository.somarPorCategoriaETipo (meses inteiros das metas)
+        assertUsa("uk_resumo_mensal_chave",
+                "SELECT SUM(r.total) FROM resumo_mensal r WHERE r.usuario_id = " + usuarioId +
+                " AND r.categoria_id = " + categoriaId + " AND r.tipo = 'DESPESA'" +
+                " AND r.mes_referencia BETWEEN " + data(HOJE.minusMonths(6).withDayOfMonth(1)) + " AND " + data(HOJE.withDayOfMonth(1)));
+    }
+
+    @Test
+    void metas() {
+        // findByUsuarioIdAndCategoriaId
+        assertUsa("idx_metas_usuario_categoria",
+                "SELECT m.id FROM metas m WHERE m.usuario_id = " + usuarioId + " AND m.categoria_id = " + categoriaId);
+        // findMetasAtivasNoPeriodo
+        assertUsa("idx_metas_usuario_periodo_ativas",
+                "SELECT m.id FROM metas m WHERE m.usuario_id = " + usuarioId +
+                " AND m.data_inicio <= " + data(HOJE) + " AND m.data_fim >= " + data(HOJE) + " AND m.ativa = true");
+    }
+
+    @Test
+    void transacoesRecorrentes() {
+        // findTransacoesPendentesExecucao (agendador)
+        assertUsa("idx_transacoes_recorrentes_pendentes",
+                "SELECT tr.id FROM transacoes_recorrentes tr WHERE tr.ativa = true" +
+                " AND tr.proxima_execucao <= " + data(HOJE) +
+                " AND (tr.data_fim IS NULL OR tr.data_fim >= " + data(HOJE) + ")");
+        // findTransacoesPendentesExecucaoPorUsuario
+        assertUsa("idx_transacoes_recorrentes_usuario_ativa",
+                "SELECT tr.id FROM transacoes_recorrentes tr WHERE tr.usuario_id = " + usuarioId +
+                " AND tr.ativa = true AND tr.proxima_execucao <= " + data(HOJE) +
+                " AND (tr.data_fim IS NULL OR tr.data_fim >= " + data(HOJE) + ")");
+    }
+
+    private void assertUsa(String indice, String sql) {
+        JsonNode plano = explicar(sql);
+        Set<String> indices = new HashSet<>();
+        Set<String> seqScans = new HashSet<>();
+        percorrer(plano, indices, seqScans);
+
+        assertThat(seqScans).as("seq scan em: %s%n%s", sql, plano).isEmpty();
+        assertThat(indices).as("índices do plano de: %s%n%s", sql, plano).contains(indice);
+    }
+
+    private JsonNode explicar(String sql) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("Plano ilegível: " + json, e);
+        }
+    }
+
+    private void percorrer(JsonNode no, Set<String> indices, Set<String> seqScans) {
+        if (no.has("Index Name")) {
+            indices.add(indicePai(no.get("Index Name").asText()));
+        }
+        if ("Seq Scan".equals(no.path("Node Type").asText())) {
+            seqScans.add(no.path("Relation Name").asText());
+        }
+        for (JsonNode filho : no.path("Plans")) {
+            percorrer(filho, indices, seqScans);
+        }
+    }
+
+    // O índice de uma partição é "filho" do índice criado na tabela pai
+    private String indicePai(String indice) {
+        List<String> pais = jdbcTemplate.queryForList(
+                "SELECT p.relname FROM pg_class i " +
+                "JOIN pg_inherits h ON h.inhrelid = i.oid JOIN pg_class p ON p.oid = h.inhparent " +
+                "WHERE i.relname = ?", String.class, indice);
+        return pais.isEmpty() ? indice : pais.get(0);
+    }
+
+    private long idDoUsuario(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class, usuarioId);
+    }
+
+    private static String data(LocalDate data) {
+        return "DATE '" + data + "'";
+    }
+}
@@ -0,0 +1,140 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.IntegracaoPostgres;
+import com.nanas.nanas.dto.CarteiraRequest;
+import com.nanas.nanas.dto.ImportacaoResponse;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.model.enums.TipoCarteira;
+import com.nanas.nanas.repository.UsuarioRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Linhas por segundo da importação de extrato, com o batch JDBC configurado
+ * (hibernate.jdbc.batch_size) e com ele desligado na sessão. O resultado vai
+ * para o log; o teste falha se o batch deixar de agrupar os INSERTs.
+ */
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ImportacaoDesempenhoTest extends IntegracaoPostgres {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacaoDesempenhoTest.class);
+
+    private static final int LINHAS = 10_000;
+
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private CarteiraService carteiraService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Long usuarioId;
+    private Long carteiraId;
+    private byte[] extrato;
+
+    @BeforeEach
+    void criarDados() {
+        Usuario usuario = new Usuario();
+        usuario.setFirebaseUid("importacao-" + UUID.randomUUID());
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        CarteiraRequest carteira = new CarteiraRequest();
+        carteira.setNome("Conta");
+        carteira.setTipo(TipoCarteira.CONTA_CORRENTE);
+        carteira.setSaldo(BigDecimal.ZERO);
+        carteiraId = carteiraService.criarCarteira(usuarioId, carteira).getId();
+
+        // Um ano de lançamentos, metade créditos e metade débitos
+        StringBuilder csv = new StringBuilder("data;valor;descricao\n");
+        LocalDate hoje = LocalDate.now();
+        for (int i = 0; i < LINHAS; i++) {
+            csv.append(hoje.minusDays(i % 365)).append(';')
+                    .append(i % 2 == 0 ? "" : "-").append(1 + i % 900).append(".").append(10 + i % 90).append(';')
+                    .append("Lançamento ").append(i).append('\n');
+        }
+        extrato = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void batchAgrupaOsInsertsDaImportacao() throws Exception {
+        // Aquecimento: a primeira importação paga a carga de classes e do plano
+        importar();
+
+        Resultado semBatch = medir(1);
+        Resultado comBatch = medir(null);
+
+        logger.info("Importação de {} linhas sem batch: {} ms, {} linhas/s, {} comandos preparados",
+                LINHAS, semBatch.millis, semBatch.linhasPorSegundo(), semBatch.comandos);
+        logger.info("Importação de {} linhas com batch: {} ms, {} linhas/s, {} comandos preparados",
+                LINHAS, comBatch.millis, comBatch.linhasPorSegundo(), comBatch.comandos);
+
+        assertThat(semBatch.comandos).isGreaterThanOrEqualTo(LINHAS);
+        // Com batch_size=50, um comando por grupo de 50 linhas (mais as sequências)
+        assertThat(comBatch.comandos).isLessThan(LINHAS / 10);
+    }
+
+    private Resultado medir(Integer tamanhoBatch) throws Exception {
+        Session sessao = entityManager.unwrap(Session.class);
+        sessao.setJdbcBatchSize(tamanhoBatch);
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        try {
+            long inicio = System.nanoTime();
+            importar();
+            long millis = (System.nanoTime() - inicio) / 1_000_000;
+            return new Resultado(millis, estatisticas.getPrepareStatementCount());
+        } finally {
+            sessao.setJdbcBatchSize(null);
+        }
+    }
+
+    private void importar() throws Exception {
+        ImportacaoResponse resposta = importacaoService.importarExtrato(usuarioId, carteiraId,
+                ImportacaoService.Formato.CSV, StandardCharsets.UTF_8, new ByteArrayInputStream(extrato));
+        assertThat(resposta.getImportadas()).isEqualTo(LINHAS);
+        // Os INSERTs pendentes entram na medição
+        entityManager.flush();
+    }
+
+    private static final class Resultado {
+        private final long millis;
+        private final long comandos;
+
+        private Resultado(long millis, long comandos) {
+            this.millis = millis;
+            this.comandos = comandos;
+        }
+
+        private long linhasPorSegundo() {
+            return LINHAS * 1000L / Math.max(1, millis);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.IntegracaoPostgres;
+import com.nanas.nanas.dto.CarteiraRequest;
+import com.nanas.nanas.dto.CategoriaRequest;
+import com.nanas.nanas.dto.MetaRequest;
+import com.nanas.nanas.dto.TransacaoRequest;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.model.enums.TipoCarteira;
+import com.nanas.nanas.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O valor atual da meta, montado do resumo mensal (meses inteiros) e das
+ * transações (pontas de mês), precisa bater com a soma direta das despesas
+ * da categoria no período.
+ */
+@Transactional
+class MetaValorAtualTest extends IntegracaoPostgres {
+
+    @Autowired
+    private MetaService metaService;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private CarteiraService carteiraService;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final LocalDate base = LocalDate.now().minusMonths(6).withDayOfMonth(1);
+    private final List<TransacaoRequest> despesas = new ArrayList<>();
+
+    private Long usuarioId;
+    private Long categoriaId;
+
+    @BeforeEach
+    void criarDados() {
+        Usuario usuario = new Usuario();
+        usuario.setFirebaseUid("meta-" + UUID.randomUUID());
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        CategoriaRequest categoria = new CategoriaRequest();
+        categoria.setNome("Mercado");
+        categoriaId = categoriaService.criarCategoria(usuarioId, categoria).getId();
+        CategoriaRequest outra = new CategoriaRequest();
+        outra.setNome("Lazer");
+        Long outraCategoriaId = categoriaService.criarCategoria(usuarioId, outra).getId();
+
+        CarteiraRequest carteira = new CarteiraRequest();
+        carteira.setNome("Conta");
+        carteira.setTipo(TipoCarteira.CONTA_CORRENTE);
+        carteira.setSaldo(new BigDecimal("1000000.00"));
+        Long carteiraId = carteiraService.criarCarteira(usuarioId, carteira).getId();
+
+        // Quatro meses de lançamentos, um a cada dois dias; só as despesas da
+        // categoria entram na meta
+        Random aleatorio = new Random(3);
+        for (LocalDate data = base; data.isBefore(base.plusMonths(4)); data = data.plusDays(2)) {
+            BigDecimal valor = BigDecimal.valueOf(100 + aleatorio.nextInt(50_000), 2);
+            TransacaoRequest despesa = new TransacaoRequest("Compra", valor, "DESPESA", data.toString(), carteiraId, null, categoriaId);
+            transacaoService.criarTransacao(usuarioId, despesa);
+            despesas.add(despesa);
+            transacaoService.criarTransacao(usuarioId,
+                    new TransacaoRequest("Estorno", valor, "RECEITA", data.toString(), carteiraId, null, categoriaId));
+            transacaoService.criarTransacao(usuarioId,
+                    new TransacaoRequest("Cinema", valor, "DESPESA", data.toString(), carteiraId, null, outraCategoriaId));
+        }
+    }
+
+    @Test
+    void mesesInteiros() {
+        assertValorAtual(base.plusMonths(1), base.plusMonths(3).minusDays(1));
+    }
+
+    @Test
+    void pontasNoMeioDoMes() {
+        assertValorAtual(base.plusDays(9), base.plusMonths(3).plusDays(14));
+    }
+
+    @Test
+    void dentroDeUmMes() {
+        assertValorAtual(base.plusMonths(2).plusDays(4), base.plusMonths(2).plusDays(20));
+    }
+
+    @Test
+    void entreDoisMesesSemMesInteiro() {
+        assertValorAtual(base.plusMonths(1).plusDays(10), base.plusMonths(2).plusDays(10));
+    }
+
+    private void assertValorAtual(LocalDate inicio, LocalDate fim) {
+        MetaRequest request = new MetaRequest();
+        request.setNome("Mercado");
+        request.setValorMeta(new BigDecimal("5000.00"));
+        request.setDataInicio(inicio);
+        request.setDataFim(fim);
+        request.setPeriodo("MENSAL");
+        request.setCategoriaId(categoriaId);
+
+        BigDecimal esperado = despesas.stream()
+                .filter(d -> !LocalDate.parse(d.getData()).isBefore(inicio) && !LocalDate.parse(d.getData()).isAfter(fim))
+                .map(TransacaoRequest::getValor)
+                .reduce(new BigDecimal("0.00"), BigDecimal::add);
+
+        assertThat(metaService.criarMeta(usuarioId, request).getValorAtual()).isEqualTo(esperado);
+    }
+}
@@ -0,0 +1,122 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.IntegracaoPostgres;
+import com.nanas.nanas.dto.CartaoCreditoDTO;
+import com.nanas.nanas.dto.CategoriaRequest;
+import com.nanas.nanas.dto.TransacaoCartaoCreditoDTO;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compras no cartão criadas, alteradas (valor, mês e categoria) e excluídas:
+ * as linhas CARTAO do resumo mensal precisam bater com as compras que restam.
+ */
+@Transactional
+class ResumoCartaoTest extends IntegracaoPostgres {
+
+    @Autowired
+    private TransacaoCartaoCreditoService transacaoCartaoCreditoService;
+
+    @Autowired
+    private CartaoCreditoService cartaoCreditoService;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Long usuarioId;
+    private Long cartaoId;
+    private Long mercadoId;
+    private Long lazerId;
+
+    @BeforeEach
+    void criarDados() {
+        Usuario usuario = new Usuario();
+        usuario.setFirebaseUid("cartao-" + UUID.randomUUID());
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        mercadoId = criarCategoria("Mercado");
+        lazerId = criarCategoria("Lazer");
+
+        CartaoCreditoDTO cartao = new CartaoCreditoDTO();
+        cartao.setNome("Cartão");
+        cartao.setLimite(new BigDecimal("5000.00"));
+        cartao.setDiaFechamento(5);
+        cartao.setDiaVencimento(12);
+        cartao.setUsuarioId(usuarioId);
+        cartaoId = cartaoCreditoService.create(cartao).getId();
+    }
+
+    @Test
+    void alteracoesEExclusoesMantemOResumoEmDia() {
+        LocalDate mes = LocalDate.now().minusMonths(3).withDayOfMonth(10);
+        List<TransacaoCartaoCreditoDTO> compras = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            compras.add(transacaoCartaoCreditoService.create(compra(null, "Compra " + i,
+                    new BigDecimal("100.00").add(BigDecimal.valueOf(i)), mes.plusDays(i), i % 2 == 0 ? mercadoId : null)));
+        }
+
+        // Valor, mês e categoria mudam; uma compra fica sem categoria
+        transacaoCartaoCreditoService.update(compras.get(0).getId(),
+                compra(compras.get(0).getId(), "Compra 0", new BigDecimal("250.00"), mes.plusMonths(1), lazerId));
+        transacaoCartaoCreditoService.update(compras.get(1).getId(),
+                compra(compras.get(1).getId(), "Compra 1", new BigDecimal("80.00"), mes.minusMonths(1), mercadoId));
+        transacaoCartaoCreditoService.update(compras.get(2).getId(),
+                compra(compras.get(2).getId(), "Compra 2", new BigDecimal("102.00"), mes.plusDays(2), null));
+        transacaoCartaoCreditoService.delete(compras.get(3).getId(), cartaoId, usuarioId);
+        transacaoCartaoCreditoService.delete(compras.get(4).getId(), cartaoId, usuarioId);
+        // As consultas abaixo vão direto ao JDBC
+        entityManager.flush();
+
+        List<Map<String, Object>> divergencias = jdbcTemplate.queryForList(
+                "SELECT * FROM (" +
+                "  SELECT CAST(date_trunc('month', t.data_compra) AS date) AS mes, COALESCE(t.categoria_id, 0) AS categoria, " +
+                "         SUM(t.valor) AS total, COUNT(*) AS quantidade " +
+                "  FROM transacoes_cartao_credito t WHERE t.usuario_id = ? GROUP BY 1, 2" +
+                ") bruto FULL JOIN (" +
+                "  SELECT r.mes_referencia AS mes, r.categoria_id AS categoria, r.total, r.quantidade " +
+                "  FROM resumo_mensal r WHERE r.usuario_id = ? AND r.tipo = 'CARTAO' AND r.quantidade <> 0" +
+                ") resumo USING (mes, categoria) " +
+                "WHERE bruto.total IS DISTINCT FROM resumo.total OR bruto.quantidade IS DISTINCT FROM resumo.quantidade",
+                usuarioId, usuarioId);
+        assertThat(divergencias).isEmpty();
+
+        Long restantes = jdbcTemplate.queryForObject(
+                "SELECT SUM(quantidade) FROM resumo_mensal WHERE usuario_id = ? AND tipo = 'CARTAO'", Long.class, usuarioId);
+        assertThat(restantes).isEqualTo(4L);
+    }
+
+    private TransacaoCartaoCreditoDTO compra(Long id, String descricao, BigDecimal valor, LocalDate data, Long categoriaId) {
+        return new TransacaoCartaoCreditoDTO(id, descricao, valor, data, cartaoId, categoriaId, usuarioId);
+    }
+
+    private Long criarCategoria(String nome) {
+        CategoriaRequest categoria = new CategoriaRequest();
+        categoria.setNome(nome);
+        return categoriaService.criarCategoria(usuarioId, categoria).getId();
+    }
+}
@@ -0,0 +1,153 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.IntegracaoPostgres;
+import com.nanas.nanas.dto.CarteiraRequest;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.model.enums.TipoCarteira;
+import com.nanas.nanas.repository.MovimentoCarteiraRepository;
+import com.nanas.nanas.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Créditos, débitos e edições do nome disputando a mesma carteira. Nenhuma
+ * atualização pode se perder: o saldo final é a soma exata do que foi
+ * confirmado, nunca fica negativo, e a versão da carteira avança uma vez por
+ * edição confirmada. Débitos recusados por saldo e edições que esgotam as
+ * tentativas (409) são resultados aceitos; qualquer outra exceção falha.
+ */
+class SaldoCarteiraConcorrenteTest extends IntegracaoPostgres {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaldoCarteiraConcorrenteTest.class);
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 250;
+
+    @Autowired
+    private CarteiraService carteiraService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentoCarteiraRepository movimentoCarteiraRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long usuarioId;
+    private Long carteiraId;
+
+    // Créditos menos débitos confirmados, em centavos. Há mais débitos que
+    // créditos, então o saldo encosta no zero e a checagem sob trava é exercitada
+    private long saldoEsperado;
+
+    @BeforeEach
+    void criarDados() {
+        Usuario usuario = new Usuario();
+        usuario.setFirebaseUid("saldo-" + UUID.randomUUID());
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        CarteiraRequest carteira = new CarteiraRequest();
+        carteira.setNome("Conta");
+        carteira.setTipo(TipoCarteira.CONTA_CORRENTE);
+        carteira.setSaldo(BigDecimal.ZERO);
+        carteiraId = carteiraService.criarCarteira(usuarioId, carteira).getId();
+    }
+
+    @Test
+    void escritasConcorrentesNaMesmaCarteiraNaoSePerdem() throws Exception {
+        List<Throwable> falhas = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger creditos = new AtomicInteger();
+        AtomicInteger debitos = new AtomicInteger();
+        AtomicInteger semSaldo = new AtomicInteger();
+        AtomicInteger edicoes = new AtomicInteger();
+        AtomicInteger conflitos = new AtomicInteger();
+
+        long versaoInicial = versaoCarteira();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long inicio = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Random aleatorio = new Random(t);
+            executor.submit(() -> {
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    long centavos = 100 + aleatorio.nextInt(10_000);
+                    BigDecimal valor = BigDecimal.valueOf(centavos, 2);
+                    int operacao = aleatorio.nextInt(10);
+                    try {
+                        if (operacao < 4) {
+                            carteiraService.atualizarSaldoCarteira(carteiraId, valor, true, LocalDate.now(), "Crédito");
+                            ajustar(centavos);
+                            creditos.incrementAndGet();
+                        } else if (operacao < 9) {
+                            carteiraService.debitarSaldoCarteira(carteiraId, valor, LocalDate.now(), "Débito");
+                            ajustar(-centavos);
+                            debitos.incrementAndGet();
+                        } else {
+                            CarteiraRequest request = new CarteiraRequest();
+                            request.setNome("Conta " + thread + "-" + i);
+                            carteiraService.atualizarCarteira(usuarioId, carteiraId, request);
+                            edicoes.incrementAndGet();
+                        }
+                    } catch (ResponseStatusException e) {
+                        if (operacao >= 4 && operacao < 9 && e.getStatus() == HttpStatus.BAD_REQUEST) {
+                            semSaldo.incrementAndGet();
+                        } else if (operacao == 9 && e.getStatus() == HttpStatus.CONFLICT) {
+                            conflitos.incrementAndGet();
+                        } else {
+                            falhas.add(e);
+                        }
+                    } catch (Throwable e) {
+                        falhas.add(e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).as("operações terminaram").isTrue();
+        long millis = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        int total = THREADS * OPERACOES_POR_THREAD;
+        logger.info("{} operações em {} ms ({} op/s): {} créditos, {} débitos, {} sem saldo, {} edições, {} conflitos",
+                total, millis, total * 1000L / millis, creditos.get(), debitos.get(), semSaldo.get(),
+                edicoes.get(), conflitos.get());
+
+        assertThat(falhas).isEmpty();
+        assertThat(creditos.get() + debitos.get() + semSaldo.get() + edicoes.get() + conflitos.get()).isEqualTo(total);
+
+        BigDecimal saldo = movimentoCarteiraRepository.calcularSaldo(carteiraId);
+        assertThat(saldo).isEqualByComparingTo(BigDecimal.valueOf(saldoEsperado, 2));
+        assertThat(saldo).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        // Cada nome é único, então toda edição confirmada gerou um UPDATE com versão nova
+        assertThat(versaoCarteira() - versaoInicial).isEqualTo(edicoes.get());
+    }
+
+    private long versaoCarteira() {
+        return jdbcTemplate.queryForObject("SELECT versao FROM carteiras WHERE id = ?", Long.class, carteiraId);
+    }
+
+    private synchronized void ajustar(long centavos) {
+        saldoEsperado += centavos;
+    }
+}
@@ -0,0 +1,215 @@
+package com.nanas.nanas.service;
+
+import com.nanas.nanas.IntegracaoPostgres;
+import com.nanas.nanas.dto.CarteiraRequest;
+import com.nanas.nanas.dto.CategoriaRequest;
+import com.nanas.nanas.dto.TransacaoRequest;
+import com.nanas.nanas.model.Usuario;
+import com.nanas.nanas.model.enums.TipoCarteira;
+import com.nanas.nanas.repository.MovimentoCarteiraRepository;
+import com.nanas.nanas.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transferências opostas, lotes, importações e reconstruções do resumo mensal
+ * do mesmo usuário em paralelo.
+ * Todas as escritas travam carteiras (em ordem de id), linhas de resumo_mensal
+ * (em ordem de chave) e a versão do usuário, nesta ordem; um deadlock chegaria
+ * aqui como exceção do PostgreSQL. Só "saldo insuficiente" é uma falha aceita.
+ */
+class TransferenciasConcorrentesTest extends IntegracaoPostgres {
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 40;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+
+    @Autowired
+    private CarteiraService carteiraService;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MovimentoCarteiraRepository movimentoCarteiraRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long usuarioId;
+    private Long categoriaId;
+    private final List<Long> carteiras = new ArrayList<>();
+
+    // Receitas menos despesas confirmadas; transferências não mudam o total
+    private BigDecimal ajusteEsperado = BigDecimal.ZERO;
+
+    @BeforeEach
+    void criarDados() {
+        Usuario usuario = new Usuario();
+        usuario.setFirebaseUid("teste-" + UUID.randomUUID());
+        usuario.setNome("Teste de concorrência");
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        CategoriaRequest categoria = new CategoriaRequest();
+        categoria.setNome("Mercado");
+        categoriaId = categoriaService.criarCategoria(usuarioId, categoria).getId();
+
+        for (int i = 0; i < 4; i++) {
+            CarteiraRequest carteira = new CarteiraRequest();
+            carteira.setNome("Carteira " + i);
+            carteira.setTipo(TipoCarteira.CONTA_CORRENTE);
+            carteira.setSaldo(SALDO_INICIAL);
+            carteiras.add(carteiraService.criarCarteira(usuarioId, carteira).getId());
+        }
+    }
+
+    @Test
+    void escritasParalelasNaoTravamEConservamODinheiro() throws Exception {
+        List<Throwable> falhas = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger concluidas = new AtomicInteger();
+        AtomicInteger semSaldo = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Random aleatorio = new Random(t);
+            executor.submit(() -> {
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    try {
+                        executar(aleatorio);
+                        concluidas.incrementAndGet();
+                    } catch (ResponseStatusException e) {
+                        if (e.getStatus() == HttpStatus.BAD_REQUEST) {
+                            semSaldo.incrementAndGet();
+                        } else {
+                            falhas.add(e);
+                        }
+                    } catch (Throwable e) {
+                        falhas.add(e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).as("operações terminaram").isTrue();
+        assertThat(falhas).isEmpty();
+        assertThat(concluidas.get() + semSaldo.get()).isEqualTo(THREADS * OPERACOES_POR_THREAD);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long carteiraId : carteiras) {
+            BigDecimal saldo = movimentoCarteiraRepository.calcularSaldo(carteiraId);
+            assertThat(saldo).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+            total = total.add(saldo);
+        }
+        assertThat(total).isEqualByComparingTo(SALDO_INICIAL.multiply(BigDecimal.valueOf(carteiras.size())).add(ajusteEsperado));
+
+        // Nenhum upsert do resumo se perdeu: ele bate com as transações do usuário
+        List<Map<String, Object>> divergencias = jdbcTemplate.queryForList(
+                "SELECT * FROM (" +
+                "  SELECT CAST(date_trunc('month', t.data) AS date) AS mes, COALESCE(t.categoria_id, 0) AS categoria, " +
+                "         t.tipo, t.carteira_origem_id AS carteira, SUM(t.valor) AS total, COUNT(*) AS quantidade " +
+                "  FROM transacoes t WHERE t.usuario_id = ? GROUP BY 1, 2, 3, 4" +
+                ") bruto FULL JOIN (" +
+                "  SELECT r.mes_referencia AS mes, r.categoria_id AS categoria, r.tipo, r.carteira_id AS carteira, " +
+                "         r.total, r.quantidade " +
+                "  FROM resumo_mensal r WHERE r.usuario_id = ? AND r.quantidade <> 0" +
+                ") resumo USING (mes, categoria, tipo, carteira) " +
+                "WHERE bruto.total IS DISTINCT FROM resumo.total OR bruto.quantidade IS DISTINCT FROM resumo.quantidade",
+                usuarioId, usuarioId);
+        assertThat(divergencias).isEmpty();
+    }
+
+    private void executar(Random aleatorio) throws Exception {
+        int origem = aleatorio.nextInt(carteiras.size());
+        int destino = (origem + 1 + aleatorio.nextInt(carteiras.size() - 1)) % carteiras.size();
+        BigDecimal valor = BigDecimal.valueOf(100 + aleatorio.nextInt(5_000), 2);
+
+        switch (aleatorio.nextInt(5)) {
+            case 0:
+                carteiraService.transferirEntreCarteiras(usuarioId, carteiras.get(origem), carteiras.get(destino),
+                        valor, "Transferência");
+                break;
+            case 1:
+                transacaoService.criarTransacao(usuarioId, transferencia(origem, destino, valor));
+                break;
+            case 2:
+                criarLote(aleatorio, valor);
+                break;
+            case 3:
+                importar(origem, valor);
+                break;
+            default:
+                // Reconstrução do resumo no meio das escritas do mesmo usuário
+                resumoMensalService.reconstruir(usuarioId);
+                break;
+        }
+    }
+
+    // Transferências nos dois sentidos mais uma receita e uma despesa de mesmo valor
+    private void criarLote(Random aleatorio, BigDecimal valor) {
+        List<TransacaoRequest> lote = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int origem = aleatorio.nextInt(carteiras.size());
+            int destino = (origem + 1 + aleatorio.nextInt(carteiras.size() - 1)) % carteiras.size();
+            lote.add(transferencia(origem, destino, valor));
+        }
+        Long carteiraId = carteiras.get(aleatorio.nextInt(carteiras.size()));
+        lote.add(new TransacaoRequest("Salário", valor, "RECEITA", LocalDate.now().toString(), carteiraId, null, categoriaId));
+        lote.add(new TransacaoRequest("Compra", valor, "DESPESA", LocalDate.now().toString(), carteiraId, null, categoriaId));
+        transacaoService.criarTransacoesEmLote(usuarioId, lote);
+    }
+
+    // Extrato com um crédito hoje e um débito menor no mês anterior
+    private void importar(int carteira, BigDecimal valor) throws Exception {
+        BigDecimal debito = valor.divide(BigDecimal.valueOf(2)).setScale(2, RoundingMode.DOWN);
+        String csv = "data;valor;descricao;categoria\n"
+                + LocalDate.now() + ";" + valor + ";Depósito;Mercado\n"
+                + LocalDate.now().minusMonths(1) + ";-" + debito + ";Tarifa;Mercado\n";
+        importacaoService.importarExtrato(usuarioId, carteiras.get(carteira), ImportacaoService.Formato.CSV,
+                StandardCharsets.UTF_8, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        ajustar(valor.subtract(debito));
+    }
+
+    private TransacaoRequest transferencia(int origem, int destino, BigDecimal valor) {
+        return new TransacaoRequest("Transferência", valor, "TRANSFERENCIA", LocalDate.now().toString(),
+                carteiras.get(origem), carteiras.get(destino), null);
+    }
+
+    private synchronized void ajustar(BigDecimal valor) {
+        ajusteEsperado = ajusteEsperado.add(valor);
+    }
+}
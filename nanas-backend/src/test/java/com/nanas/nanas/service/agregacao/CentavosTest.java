@@ -0,0 +1,66 @@
+package com.nanas.nanas.service.agregacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CentavosTest {
+
+    @Test
+    void converteValoresComAteDuasCasas() {
+        assertThat(Centavos.de(new BigDecimal("12.34"))).isEqualTo(1234L);
+        assertThat(Centavos.de(new BigDecimal("-0.01"))).isEqualTo(-1L);
+        assertThat(Centavos.de(new BigDecimal("0.10"))).isEqualTo(10L);
+        assertThat(Centavos.de(new BigDecimal("12.5"))).isEqualTo(1250L);
+        assertThat(Centavos.de(new BigDecimal("7"))).isEqualTo(700L);
+        assertThat(Centavos.de(BigDecimal.ZERO)).isEqualTo(0L);
+    }
+
+    @Test
+    void aceitaZerosAlemDaSegundaCasa() {
+        assertThat(Centavos.de(new BigDecimal("1.230"))).isEqualTo(123L);
+        assertThat(Centavos.de(new BigDecimal("5.000000"))).isEqualTo(500L);
+    }
+
+    @Test
+    void nuncaArredonda() {
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("12.345"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("-0.005"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("99.999"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void rejeitaValorQueNaoCabeEmLong() {
+        assertThat(Centavos.de(new BigDecimal("92233720368547758.07"))).isEqualTo(Long.MAX_VALUE);
+        assertThat(Centavos.de(new BigDecimal("-92233720368547758.08"))).isEqualTo(Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Centavos.de(new BigDecimal("-92233720368547758.09")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void voltaParaBigDecimalComDuasCasas() {
+        assertThat(Centavos.paraBigDecimal(1234L)).isEqualTo(new BigDecimal("12.34"));
+        assertThat(Centavos.paraBigDecimal(-1L)).isEqualTo(new BigDecimal("-0.01"));
+        assertThat(Centavos.paraBigDecimal(0L)).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    void idaEVoltaPreservaOValor() {
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long centavos = aleatorio.nextLong();
+            BigDecimal valor = Centavos.paraBigDecimal(centavos);
+
+            assertThat(Centavos.de(valor)).isEqualTo(centavos);
+            assertThat(valor).isEqualTo(new BigDecimal(centavos).movePointLeft(2));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.nanas.nanas.service.agregacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Os totais em centavos precisam ser iguais, inclusive na escala, aos de
+ * reduce(BigDecimal.ZERO, BigDecimal::add), que é o caminho substituído.
+ */
+class SomaCentavosTest {
+
+    @Test
+    void igualASomaEmBigDecimal() {
+        List<BigDecimal> valores = valoresAleatorios(new Random(7), 10_000);
+
+        SomaCentavos soma = new SomaCentavos();
+        valores.forEach(soma::adicionar);
+
+        assertThat(soma.total()).isEqualTo(somaBigDecimal(valores));
+    }
+
+    @Test
+    void coletorIgualASomaEmBigDecimal() {
+        List<BigDecimal> valores = valoresAleatorios(new Random(11), 10_000);
+
+        assertThat(valores.stream().collect(SomaCentavos.somando())).isEqualTo(somaBigDecimal(valores));
+        // Em paralelo o combinador junta as somas parciais
+        assertThat(valores.parallelStream().collect(SomaCentavos.somando())).isEqualTo(somaBigDecimal(valores));
+    }
+
+    @Test
+    void somaVaziaEZeroComDuasCasas() {
+        assertThat(new SomaCentavos().total()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(new ArrayList<BigDecimal>().stream().collect(SomaCentavos.somando()))
+                .isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    void valoresQueSeAnulamSomamZero() {
+        SomaCentavos soma = new SomaCentavos()
+                .adicionar(new BigDecimal("0.10"))
+                .adicionar(new BigDecimal("0.20"))
+                .adicionar(new BigDecimal("-0.30"));
+
+        assertThat(soma.getCentavos()).isEqualTo(0L);
+        assertThat(soma.total()).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    void valorComMaisDeDuasCasasFalhaSemAlterarASoma() {
+        SomaCentavos soma = new SomaCentavos().adicionar(new BigDecimal("1.50"));
+
+        assertThatThrownBy(() -> soma.adicionar(new BigDecimal("0.005"))).isInstanceOf(ArithmeticException.class);
+
+        assertThat(soma.getCentavos()).isEqualTo(150L);
+    }
+
+    @Test
+    void estouroFalhaEmVezDeDarAVolta() {
+        SomaCentavos soma = new SomaCentavos().adicionar(Centavos.paraBigDecimal(Long.MAX_VALUE));
+
+        assertThatThrownBy(() -> soma.adicionar(new BigDecimal("0.01"))).isInstanceOf(ArithmeticException.class);
+        assertThat(soma.getCentavos()).isEqualTo(Long.MAX_VALUE);
+
+        List<BigDecimal> valores = List.of(Centavos.paraBigDecimal(Long.MIN_VALUE), new BigDecimal("-0.01"));
+        assertThatThrownBy(() -> valores.stream().collect(SomaCentavos.somando()))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    private static BigDecimal somaBigDecimal(List<BigDecimal> valores) {
+        return valores.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Valores de conta com escalas 0, 1 e 2, positivos e negativos
+    private static List<BigDecimal> valoresAleatorios(Random aleatorio, int quantidade) {
+        List<BigDecimal> valores = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            long centavos = aleatorio.nextInt(2_000_000_001) - 1_000_000_000L;
+            switch (i % 3) {
+                case 0:
+                    valores.add(BigDecimal.valueOf(centavos, 2));
+                    break;
+                case 1:
+                    valores.add(BigDecimal.valueOf(centavos / 10, 1));
+                    break;
+                default:
+                    valores.add(BigDecimal.valueOf(centavos / 100));
+                    break;
+            }
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,164 @@
+package com.nanas.nanas.service.agregacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compara a tabela com um HashMap<Long, BigDecimal> somado por BigDecimal::add,
+ * o caminho que ela substitui.
+ */
+class SomasPorChaveTest {
+
+    @Test
+    void igualAoMapaDeBigDecimal() {
+        Random aleatorio = new Random(3);
+        SomasPorChave somas = new SomasPorChave();
+        Map<Long, BigDecimal> esperado = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            long chave = chaveAleatoria(aleatorio);
+            BigDecimal valor = BigDecimal.valueOf(aleatorio.nextInt(2_000_001) - 1_000_000L, 2);
+            somas.adicionar(chave, valor);
+            esperado.merge(chave, valor, BigDecimal::add);
+        }
+
+        assertIgual(somas, esperado);
+    }
+
+    @Test
+    void redimensionaSemPerderSomas() {
+        // Capacidade inicial mínima: dobra várias vezes até 10 mil chaves
+        SomasPorChave somas = new SomasPorChave(1);
+        Map<Long, BigDecimal> esperado = new HashMap<>();
+
+        for (int rodada = 0; rodada < 2; rodada++) {
+            for (long id = 1; id <= 10_000; id++) {
+                BigDecimal valor = BigDecimal.valueOf(id * 7 + rodada, 2);
+                somas.adicionar(id, valor);
+                esperado.merge(id, valor, BigDecimal::add);
+            }
+        }
+
+        assertIgual(somas, esperado);
+    }
+
+    @Test
+    void sondagemResolveChavesNaMesmaPosicao() {
+        SomasPorChave somas = new SomasPorChave();
+        List<Long> colidentes = chavesNaMesmaPosicao(8);
+        Map<Long, BigDecimal> esperado = new HashMap<>();
+
+        // Sete chaves cabem sem redimensionar a tabela de 16 posições
+        for (int i = 0; i < 7; i++) {
+            long chave = colidentes.get(i);
+            BigDecimal valor = BigDecimal.valueOf(100L * (i + 1), 2);
+            somas.adicionar(chave, valor);
+            somas.adicionar(chave, valor);
+            esperado.merge(chave, valor.add(valor), BigDecimal::add);
+        }
+
+        assertIgual(somas, esperado);
+        long ausente = colidentes.get(7);
+        assertThat(somas.contem(ausente)).isFalse();
+        assertThat(somas.centavos(ausente)).isEqualTo(0L);
+    }
+
+    @Test
+    void chaveAusenteSomaZero() {
+        SomasPorChave somas = new SomasPorChave();
+        somas.adicionarCentavos(1L, 500L);
+
+        assertThat(somas.contem(2L)).isFalse();
+        assertThat(somas.centavos(2L)).isEqualTo(0L);
+        assertThat(somas.total(2L)).isEqualTo(new BigDecimal("0.00"));
+        assertThat(somas.tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    void chaveComSomaZeroContinuaPresente() {
+        SomasPorChave somas = new SomasPorChave();
+        somas.adicionar(5L, new BigDecimal("10.00"));
+        somas.adicionar(5L, new BigDecimal("-10.00"));
+
+        assertThat(somas.contem(5L)).isTrue();
+        assertThat(somas.total(5L)).isEqualTo(new BigDecimal("0.00"));
+        assertThat(somas.tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    void estouroFalhaSemAlterarASoma() {
+        SomasPorChave somas = new SomasPorChave();
+        somas.adicionarCentavos(1L, Long.MAX_VALUE);
+        somas.adicionarCentavos(2L, Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> somas.adicionarCentavos(1L, 1L)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> somas.adicionarCentavos(2L, -1L)).isInstanceOf(ArithmeticException.class);
+
+        assertThat(somas.centavos(1L)).isEqualTo(Long.MAX_VALUE);
+        assertThat(somas.centavos(2L)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void valorComMaisDeDuasCasasNaoCriaAChave() {
+        SomasPorChave somas = new SomasPorChave();
+
+        assertThatThrownBy(() -> somas.adicionar(9L, new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+
+        assertThat(somas.contem(9L)).isFalse();
+        assertThat(somas.tamanho()).isEqualTo(0);
+    }
+
+    private static void assertIgual(SomasPorChave somas, Map<Long, BigDecimal> esperado) {
+        assertThat(somas.tamanho()).isEqualTo(esperado.size());
+        esperado.forEach((chave, valor) -> {
+            assertThat(somas.contem(chave)).isTrue();
+            assertThat(somas.total(chave)).isEqualTo(valor);
+        });
+
+        Map<Long, BigDecimal> percorrido = new HashMap<>();
+        somas.forEach((chave, centavos) -> percorrido.put(chave, Centavos.paraBigDecimal(centavos)));
+        assertThat(percorrido).isEqualTo(esperado);
+    }
+
+    // Ids em sequência, ids espalhados e os extremos de long
+    private static long chaveAleatoria(Random aleatorio) {
+        switch (aleatorio.nextInt(4)) {
+            case 0:
+                return aleatorio.nextInt(500);
+            case 1:
+                return aleatorio.nextLong();
+            case 2:
+                return -aleatorio.nextInt(500);
+            default:
+                long[] extremos = {0L, Long.MIN_VALUE, Long.MAX_VALUE, -1L};
+                return extremos[aleatorio.nextInt(extremos.length)];
+        }
+    }
+
+    // Mesmo espalhamento de SomasPorChave: chaves com a mesma posição inicial
+    // numa tabela de 16 posições, para forçar a sondagem
+    private static List<Long> chavesNaMesmaPosicao(int quantidade) {
+        List<Long> chaves = new ArrayList<>();
+        int alvo = posicaoInicial(1L);
+        for (long chave = 1; chaves.size() < quantidade; chave++) {
+            if (posicaoInicial(chave) == alvo) {
+                chaves.add(chave);
+            }
+        }
+        return chaves;
+    }
+
+    private static int posicaoInicial(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & 15;
+    }
+}